@@ -0,0 +1,167 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 csanchez.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.jenkins.plugins.validating_yaml_parameter;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of validating a value, as the parameter form and the build triggers do, across document
+ * sizes, shapes and {@link ValidationMode}s, checked as a single document or as a stream of them.
+ * {@link #validate()} bypasses the validation cache to measure the parse itself,
+ * {@link #validateCached()} measures a repeated check of the same value.
+ *
+ * <p>Run with {@code mvn -P benchmark test-compile exec:exec}, see CONTRIBUTING.md.
+ *
+ * @author csanchez
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ValidationBenchmark {
+
+    /**
+     * Shape of the generated document.
+     */
+    public enum Shape {
+        /** A single mapping of short scalars. */
+        FLAT {
+            @Override
+            void entry(StringBuilder yaml, int i) {
+                yaml.append("key").append(i).append(": value ").append(i).append('\n');
+            }
+        },
+        /** Mappings nested 40 levels deep, one after the other. */
+        NESTED {
+            @Override
+            void entry(StringBuilder yaml, int i) {
+                for (int depth = 0; depth < 40; depth++) {
+                    yaml.append("  ".repeat(depth)).append(depth == 0 ? "key" + i : "level" + depth).append(":\n");
+                }
+                yaml.append("  ".repeat(40)).append("leaf: ").append(i).append('\n');
+            }
+        },
+        /** Every entry is an alias of the same anchored collection. */
+        ANCHORS {
+            @Override
+            void start(StringBuilder yaml) {
+                yaml.append("base: &base {image: nginx, tag: '1.25', ports: [80, 443], env: {A: 1, B: 2}}\n");
+            }
+
+            @Override
+            void entry(StringBuilder yaml, int i) {
+                yaml.append("key").append(i).append(": *base\n");
+            }
+        },
+        /** A stream of small documents. */
+        MULTI_DOCUMENT {
+            @Override
+            void entry(StringBuilder yaml, int i) {
+                yaml.append("---\nkey: value ").append(i).append("\nlist: [1, 2, 3]\n");
+            }
+        },
+        /** A flat mapping with a syntax error at the very end, the costliest place for it. */
+        INVALID {
+            @Override
+            void entry(StringBuilder yaml, int i) {
+                FLAT.entry(yaml, i);
+            }
+
+            @Override
+            void end(StringBuilder yaml) {
+                yaml.append("broken: value: value\n");
+            }
+        };
+
+        void start(StringBuilder yaml) {
+        }
+
+        abstract void entry(StringBuilder yaml, int i);
+
+        void end(StringBuilder yaml) {
+        }
+
+        String generate(int size) {
+            StringBuilder yaml = new StringBuilder(size + 1024);
+            start(yaml);
+            for (int i = 0; yaml.length() < size; i++) {
+                entry(yaml, i);
+            }
+            end(yaml);
+            return yaml.toString();
+        }
+    }
+
+    @Param({"1024", "102400", "1048576", "10485760"})
+    public int size;
+
+    @Param
+    public Shape shape;
+
+    @Param
+    public ValidationMode mode;
+
+    @Param({"false", "true"})
+    public boolean multiDocument;
+
+    /** No limits, so that every document is parsed to the end. */
+    private static final ValidationLimits UNLIMITED = new ValidationLimits(0, 0, 0, 0, 0);
+
+    static {
+        UNLIMITED.setMaxExpansionFactor(0);
+        UNLIMITED.setTimeoutMillis(0);
+    }
+
+    private String value;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        value = shape.generate(size);
+        YamlValidator.get().validate(value, mode, multiDocument, UNLIMITED, null);
+    }
+
+    @Benchmark
+    public ValidationResult validate() {
+        return YamlValidator.get().check(value, mode, multiDocument, UNLIMITED, null, System.nanoTime());
+    }
+
+    @Benchmark
+    public ValidationResult validateCached() {
+        return YamlValidator.get().validate(value, mode, multiDocument, UNLIMITED, null);
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 csanchez.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.jenkins.plugins.validating_yaml_parameter;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import jenkins.util.SystemProperties;
+import net.sf.json.JSONObject;
+import org.yaml.snakeyaml.LoaderOptions;
+import org.yaml.snakeyaml.error.YAMLException;
+import org.yaml.snakeyaml.events.Event;
+import org.yaml.snakeyaml.events.ScalarEvent;
+import org.yaml.snakeyaml.parser.Parser;
+import org.yaml.snakeyaml.parser.ParserImpl;
+import org.yaml.snakeyaml.reader.StreamReader;
+
+/**
+ * Validates many candidate values of a parameter at once, for tools that check payloads before
+ * triggering anything, see {@link ValidatingYamlParameterDefinition.DescriptorImpl#doValidateBatch}.
+ *
+ * <p>The body is read with the YAML parser, JSON being YAML, so that strings come back exactly as
+ * they were sent. The values are validated in parallel on a small pool of threads of its own,
+ * each one in place whatever its size, so that a large batch neither waits behind nor fills up
+ * the pool of {@link YamlValidator}. The queue of the pool is bounded, and a batch that does not
+ * fit in it is turned away. Each value goes through the same validation, and cache, as a value
+ * checked on its own. The results are written as a JSON array in the order of the values, each
+ * one as soon as it and those before it are done.
+ *
+ * @author csanchez
+ */
+final class BatchValidation {
+
+    static final int PARALLELISM = SystemProperties.getInteger(BatchValidation.class.getName() + ".parallelism", YamlValidator.THREADS);
+    static final int MAX_VALUES = SystemProperties.getInteger(BatchValidation.class.getName() + ".maxValues", 1000);
+    static final int MAX_BODY_CODE_POINTS = SystemProperties.getInteger(BatchValidation.class.getName() + ".maxBodyCodePoints", 64 * 1024 * 1024);
+
+    static final int QUEUE_DEPTH = SystemProperties.getInteger(BatchValidation.class.getName() + ".queueDepth", MAX_VALUES);
+
+    private static final ExecutorService POOL = YamlValidator.newExecutor("YamlValidator batch", PARALLELISM, QUEUE_DEPTH);
+
+    private BatchValidation() {
+    }
+
+    /**
+     * Read the values of a batch, a JSON array of strings, as YAML parser events, so that the body is
+     * never held as a whole beside the values.
+     *
+     * @throws IllegalArgumentException if the body is not a JSON array of strings, or has too many of them
+     */
+    static List<String> readValues(Reader body) {
+        LoaderOptions options = new LoaderOptions();
+        options.setCodePointLimit(MAX_BODY_CODE_POINTS);
+        Parser parser = new ParserImpl(new StreamReader(body), options);
+        List<String> values = new ArrayList<>();
+        try {
+            expect(parser, Event.ID.StreamStart);
+            expect(parser, Event.ID.DocumentStart);
+            expect(parser, Event.ID.SequenceStart);
+            while (!parser.checkEvent(Event.ID.SequenceEnd)) {
+                if (!(parser.getEvent() instanceof ScalarEvent scalar) || scalar.isPlain()) {
+                    throw new IllegalArgumentException("Expected a JSON array of strings");
+                }
+                if (values.size() == MAX_VALUES) {
+                    throw new IllegalArgumentException("At most " + MAX_VALUES + " values can be checked at once");
+                }
+                values.add(scalar.getValue());
+            }
+            expect(parser, Event.ID.SequenceEnd);
+            expect(parser, Event.ID.DocumentEnd);
+            expect(parser, Event.ID.StreamEnd);
+        } catch (YAMLException e) {
+            throw new IllegalArgumentException("Expected a JSON array of strings: " + e.getMessage(), e);
+        }
+        return values;
+    }
+
+    private static void expect(Parser parser, Event.ID id) {
+        if (!parser.checkEvent(id)) {
+            throw new IllegalArgumentException("Expected a JSON array of strings");
+        }
+        parser.getEvent();
+    }
+
+    /**
+     * Start validating {@code values} with the settings of {@code definition}.
+     *
+     * @param job full name of the job, {@code null} if unknown
+     * @return the validations, in the order of the values
+     * @throws RejectedExecutionException if the pool has no room left for the values, none of which
+     *         is then validated
+     */
+    static List<Future<ValidationResult>> submit(ValidatingYamlParameterDefinition definition, List<String> values, String job) {
+        List<Future<ValidationResult>> tasks = new ArrayList<>(values.size());
+        try {
+            for (String value : values) {
+                tasks.add(POOL.submit(() -> definition.validate(value, ValidationEntryPoint.BATCH, job)));
+            }
+        } catch (RejectedExecutionException e) {
+            cancel(tasks);
+            throw e;
+        }
+        return tasks;
+    }
+
+    /**
+     * Write the results of {@code tasks} as a JSON array, flushing each one as it is written.
+     * The validations not done yet are cancelled if the client goes away, those already running
+     * being interrupted, which the parser checks along with its deadline.
+     */
+    static void write(List<Future<ValidationResult>> tasks, Writer out) throws IOException {
+        try {
+            out.write('[');
+            for (int i = 0; i < tasks.size(); i++) {
+                if (i > 0) {
+                    out.write(',');
+                }
+                out.write(toJSON(i, join(tasks.get(i))).toString());
+                out.flush();
+            }
+            out.write(']');
+            out.flush();
+        } catch (IOException | RuntimeException e) {
+            cancel(tasks);
+            throw e;
+        }
+    }
+
+    private static void cancel(List<Future<ValidationResult>> tasks) {
+        for (Future<ValidationResult> task : tasks) {
+            task.cancel(true);
+        }
+    }
+
+    /**
+     * Wait for the result of {@code task}, turning a validation that failed to complete into an invalid result.
+     */
+    static ValidationResult join(Future<ValidationResult> task) {
+        try {
+            return task.get();
+        } catch (ExecutionException e) {
+            return failed(e.getCause().toString());
+        } catch (CancellationException e) {
+            return failed("validation was cancelled");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return failed("validation was interrupted");
+        }
+    }
+
+    private static ValidationResult failed(String error) {
+        ValidationResult vres = new ValidationResult();
+        vres.setResult(false);
+        vres.setError(error);
+        return vres;
+    }
+
+    static JSONObject toJSON(int index, ValidationResult vres) {
+        JSONObject json = new JSONObject();
+        json.put("index", index);
+        json.put("valid", vres.getResult());
+        json.put("outcome", vres.getOutcome().name());
+        if (vres.getError() != null) {
+            json.put("error", vres.getError());
+        }
+        if (vres.getFailedDocument() > 0) {
+            json.put("failedDocument", vres.getFailedDocument());
+        }
+        json.put("documents", vres.getDocuments());
+        json.put("nodes", vres.getNodes());
+        json.put("cacheHit", vres.isCacheHit());
+        return json;
+    }
+}
@@ -0,0 +1,227 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 csanchez.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.jenkins.plugins.validating_yaml_parameter;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Content-addressed store of compressed YAML values, one per job.
+ *
+ * <p>Each value is stored once as {@code <digest>.yaml.gz}, however many builds use it. The
+ * builds referring to it are recorded as empty marker files in {@code <digest>.refs/}, which
+ * makes adding and releasing a reference idempotent and crash-safe; the value is deleted along
+ * with its last reference. Operations on the same digest are serialized.
+ *
+ * @author csanchez
+ */
+final class BlobStore {
+
+    /** Context of the digests of values, see {@link ContentDigest#of(String, String)}. */
+    static final String DIGEST_CONTEXT = "value";
+
+    private static final String REFERENCES = ".refs";
+
+    private static final Object[] LOCKS = new Object[64];
+
+    static {
+        for (int i = 0; i < LOCKS.length; i++) {
+            LOCKS[i] = new Object();
+        }
+    }
+
+    private BlobStore() {
+    }
+
+    private static Object lock(String digest) {
+        return LOCKS[digest.hashCode() & (LOCKS.length - 1)];
+    }
+
+    static File blob(File dir, String digest) {
+        return new File(dir, digest + ".yaml.gz");
+    }
+
+    private static File references(File dir, String digest) {
+        return new File(dir, digest + REFERENCES);
+    }
+
+    /**
+     * Record that {@code reference} uses the value with {@code digest}, writing the value if the store does not
+     * have it yet.
+     *
+     * @param text supplies the value, only called when it has to be written
+     */
+    static void store(File dir, String digest, Supplier<String> text, String reference) throws IOException {
+        synchronized (lock(digest)) {
+            File blob = blob(dir, digest);
+            if (!blob.exists()) {
+                String value = text.get();
+                if (value == null) {
+                    throw new IOException("value " + digest + " is not available");
+                }
+                File tmp = createTempFile(dir, digest);
+                try (Writer writer = openWriter(tmp)) {
+                    writer.write(value);
+                } catch (IOException e) {
+                    Files.deleteIfExists(tmp.toPath());
+                    throw e;
+                }
+                Files.move(tmp.toPath(), blob.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+            addReference(dir, digest, reference);
+        }
+    }
+
+    /**
+     * Record that {@code reference} uses the value with {@code digest}, copying it from the store in {@code from}
+     * if the store in {@code dir} does not have it yet. The value is copied compressed, without being read.
+     */
+    static void copy(File from, File dir, String digest, String reference) throws IOException {
+        synchronized (lock(digest)) {
+            File blob = blob(dir, digest);
+            if (!blob.exists()) {
+                File tmp = createTempFile(dir, digest);
+                try {
+                    Files.copy(blob(from, digest).toPath(), tmp.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                } catch (IOException e) {
+                    Files.deleteIfExists(tmp.toPath());
+                    throw e;
+                }
+                Files.move(tmp.toPath(), blob.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+            addReference(dir, digest, reference);
+        }
+    }
+
+    /**
+     * Record that {@code reference} uses the value with {@code digest}, which the caller wrote, as
+     * gzipped UTF-8, to {@code tmp}, a file of {@link #createTempFile(File, String)}. The file is
+     * moved into place, or deleted if the store already has the value.
+     */
+    static void adopt(File dir, String digest, File tmp, String reference) throws IOException {
+        synchronized (lock(digest)) {
+            File blob = blob(dir, digest);
+            if (blob.exists()) {
+                Files.delete(tmp.toPath());
+            } else {
+                Files.move(tmp.toPath(), blob.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+            addReference(dir, digest, reference);
+        }
+    }
+
+    static File createTempFile(File dir, String prefix) throws IOException {
+        Files.createDirectories(dir.toPath());
+        return File.createTempFile(prefix, ".tmp", dir);
+    }
+
+    private static Writer openWriter(File file) throws IOException {
+        return new OutputStreamWriter(new GZIPOutputStream(Files.newOutputStream(file.toPath())), StandardCharsets.UTF_8);
+    }
+
+    private static void addReference(File dir, String digest, String reference) throws IOException {
+        File refs = references(dir, digest);
+        Files.createDirectories(refs.toPath());
+        File marker = new File(refs, reference);
+        if (!marker.exists()) {
+            Files.createFile(marker.toPath());
+        }
+    }
+
+    /**
+     * Drop {@code reference} to the value with {@code digest}, deleting the value if nothing else refers to it.
+     */
+    static void release(File dir, String digest, String reference) throws IOException {
+        synchronized (lock(digest)) {
+            File refs = references(dir, digest);
+            Files.deleteIfExists(new File(refs, reference).toPath());
+            String[] remaining = refs.list();
+            if (remaining == null || remaining.length == 0) {
+                Files.deleteIfExists(refs.toPath());
+                Files.deleteIfExists(blob(dir, digest).toPath());
+            }
+        }
+    }
+
+    /**
+     * Drop every reference, across all values in {@code dir}, whose marker file {@code orphaned} accepts.
+     */
+    static void releaseIf(File dir, Predicate<File> orphaned) throws IOException {
+        File[] all = dir.listFiles((d, name) -> name.endsWith(REFERENCES));
+        if (all == null) {
+            return;
+        }
+        for (File refs : all) {
+            String digest = refs.getName().substring(0, refs.getName().length() - REFERENCES.length());
+            File[] markers = refs.listFiles();
+            if (markers == null) {
+                continue;
+            }
+            for (File marker : markers) {
+                if (orphaned.test(marker)) {
+                    release(dir, digest, marker.getName());
+                }
+            }
+        }
+    }
+
+    /**
+     * Number of references to the value with {@code digest}.
+     */
+    static int getReferences(File dir, String digest) {
+        String[] refs = references(dir, digest).list();
+        return refs == null ? 0 : refs.length;
+    }
+
+    /**
+     * Read the value with {@code digest}.
+     *
+     * @throws IOException if it is missing or does not match its digest
+     */
+    static String read(File dir, String digest) throws IOException {
+        File blob = blob(dir, digest);
+        String text;
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(blob.toPath()))) {
+            text = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        if (!digest.equals(digestOf(text))) {
+            throw new IOException(blob + " does not match its digest");
+        }
+        return text;
+    }
+
+    static String digestOf(String text) {
+        return ContentDigest.of(DIGEST_CONTEXT, text);
+    }
+}
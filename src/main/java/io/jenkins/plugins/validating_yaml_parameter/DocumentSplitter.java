@@ -0,0 +1,114 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 csanchez.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.jenkins.plugins.validating_yaml_parameter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits a YAML stream into the text of its documents, at the document markers, without parsing it.
+ *
+ * <p>A {@code ---} or {@code ...} line at column 0 always ends the document before it: no scalar or
+ * collection can run across one. A part starts at a {@code ---} line, together with the directives
+ * and comments just before it, and the {@code ...} line that ends a document stays with it. Line
+ * breaks are those of SnakeYAML, so that a part starts at the same line the parser would count.
+ * Splitting less than possible is harmless, a part then just holds several documents.
+ *
+ * @author csanchez
+ */
+final class DocumentSplitter {
+
+    /**
+     * Text of one or more documents, starting at {@code line}, counted from 0, of the stream.
+     */
+    record Part(int line, String text) {
+    }
+
+    private DocumentSplitter() {
+    }
+
+    static List<Part> split(String value) {
+        List<Part> parts = new ArrayList<>();
+        int partStart = 0;
+        int partLine = 0;
+        int line = 0;
+        boolean content = false;
+        int i = 0;
+        int length = value.length();
+        while (i < length) {
+            int lineStart = i;
+            int lineEnd = lineStart;
+            while (lineEnd < length && !isBreak(value.charAt(lineEnd))) {
+                lineEnd++;
+            }
+            i = lineEnd;
+            if (i < length) {
+                i += value.charAt(i) == '\r' && i + 1 < length && value.charAt(i + 1) == '\n' ? 2 : 1;
+            }
+            int from = lineStart == 0 && value.charAt(0) == '\uFEFF' ? 1 : lineStart;
+            if (isMarker(value, from, lineEnd, '-')) {
+                if (content && lineStart > partStart) {
+                    parts.add(new Part(partLine, value.substring(partStart, lineStart)));
+                    partStart = lineStart;
+                    partLine = line;
+                }
+                content = true;
+            } else if (isMarker(value, from, lineEnd, '.')) {
+                parts.add(new Part(partLine, value.substring(partStart, i)));
+                partStart = i;
+                partLine = line + 1;
+                content = false;
+            } else if (!content && !isBlankOrComment(value, from, lineEnd) && value.charAt(from) != '%') {
+                content = true;
+            }
+            line++;
+        }
+        if (partStart < length || parts.isEmpty()) {
+            parts.add(new Part(partLine, value.substring(partStart)));
+        }
+        return parts;
+    }
+
+    private static boolean isMarker(String value, int start, int end, char c) {
+        return end - start >= 3 && value.charAt(start) == c && value.charAt(start + 1) == c && value.charAt(start + 2) == c
+                && (end - start == 3 || value.charAt(start + 3) == ' ' || value.charAt(start + 3) == '\t');
+    }
+
+    private static boolean isBlankOrComment(String value, int start, int end) {
+        for (int i = start; i < end; i++) {
+            char c = value.charAt(i);
+            if (c == '#') {
+                return true;
+            }
+            if (c != ' ' && c != '\t') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isBreak(char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 csanchez.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.jenkins.plugins.validating_yaml_parameter;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import org.yaml.snakeyaml.nodes.MappingNode;
+import org.yaml.snakeyaml.nodes.Node;
+import org.yaml.snakeyaml.nodes.NodeTuple;
+import org.yaml.snakeyaml.nodes.SequenceNode;
+
+/**
+ * Computes how many nodes a composed document would have once every alias is expanded,
+ * without expanding anything.
+ *
+ * <p>SnakeYAML's composer resolves an alias to the very node that carries the anchor, so the
+ * node graph is a DAG (or a cyclic graph for recursive documents) in which shared subtrees
+ * appear once. The expanded size of each node is memoized by identity, which makes the estimate
+ * linear in the number of distinct nodes even for "billion laughs" documents. A node that refers
+ * back to one of its ancestors counts as a single node.
+ *
+ * @author csanchez
+ */
+final class ExpansionEstimator {
+
+    /** Documents that expand to fewer nodes than this are never rejected, whatever their ratio. */
+    static final long EXPANSION_FLOOR = 10_000;
+
+    private final Map<Node, Long> sizes = new IdentityHashMap<>();
+
+    /**
+     * Reject the document if its expanded size exceeds the maximum expansion factor of the limits.
+     */
+    static void check(Node root, ValidationLimits limits) {
+        if (root == null || !ValidationLimits.isSet(limits.getMaxExpansionFactor())) {
+            return;
+        }
+        ExpansionEstimator estimator = new ExpansionEstimator();
+        long expanded = estimator.expandedSize(root);
+        check(estimator.getDistinctNodes(), expanded, limits);
+    }
+
+    /**
+     * Reject a document of {@code distinct} nodes that expands to {@code expanded} nodes if that
+     * exceeds the maximum expansion factor of the limits.
+     */
+    static void check(int distinct, long expanded, ValidationLimits limits) {
+        if (distinct > 0 && ValidationLimits.isSet(limits.getMaxExpansionFactor())
+                && expanded > EXPANSION_FLOOR && expanded / distinct > limits.getMaxExpansionFactor()) {
+            throw new LimitExceededException("document expands from " + distinct + " to " + expanded
+                    + " nodes, exceeding the maximum expansion factor of " + limits.getMaxExpansionFactor());
+        }
+    }
+
+    long expandedSize(Node node) {
+        Long known = sizes.get(node);
+        if (known != null) {
+            return known;
+        }
+        // placeholder while the children are visited, so that recursive references terminate
+        sizes.put(node, 1L);
+        long size = 1;
+        if (node instanceof SequenceNode sequence) {
+            for (Node child : sequence.getValue()) {
+                size = add(size, expandedSize(child));
+            }
+        } else if (node instanceof MappingNode mapping) {
+            for (NodeTuple tuple : mapping.getValue()) {
+                size = add(size, expandedSize(tuple.getKeyNode()));
+                size = add(size, expandedSize(tuple.getValueNode()));
+            }
+        }
+        sizes.put(node, size);
+        return size;
+    }
+
+    int getDistinctNodes() {
+        return sizes.size();
+    }
+
+    private static long add(long a, long b) {
+        long sum = a + b;
+        return sum < 0 ? Long.MAX_VALUE : sum;
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 csanchez.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.jenkins.plugins.validating_yaml_parameter;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.yaml.snakeyaml.events.AliasEvent;
+import org.yaml.snakeyaml.events.CollectionStartEvent;
+import org.yaml.snakeyaml.events.Event;
+import org.yaml.snakeyaml.events.ScalarEvent;
+import org.yaml.snakeyaml.parser.Parser;
+
+/**
+ * {@link Parser} wrapper that accounts for every event handed out and enforces the depth,
+ * node and alias limits of each document, and the document and total node limits of the stream,
+ * as soon as they are exceeded, whoever consumes the events.
+ * Like SnakeYAML's own limit, only aliases of collections count against the alias limit.
+ * Every so often it also checks the deadline and the interrupt flag of the current thread,
+ * which is how a validation that took too long gets cancelled.
+ *
+ * @author csanchez
+ */
+final class GuardedParser implements Parser {
+
+    private static final int DEADLINE_CHECK_INTERVAL = 0x3FF;
+
+    private final Parser delegate;
+    private final ValidationLimits limits;
+    private final long start;
+    private final long timeoutNanos;
+
+    private int depth;
+    private int maxDepth;
+    private int nodes;
+    private int documentNodes;
+    private int aliases;
+    private int documentAliases;
+    private int documents;
+    private int events;
+    private final Set<String> collectionAnchors = new HashSet<>();
+
+    GuardedParser(Parser delegate, ValidationLimits limits, long start) {
+        this.delegate = delegate;
+        this.limits = limits;
+        this.start = start;
+        Integer timeout = limits.getTimeoutMillis();
+        this.timeoutNanos = ValidationLimits.isSet(timeout) ? TimeUnit.MILLISECONDS.toNanos(timeout) : 0;
+    }
+
+    @Override
+    public boolean checkEvent(Event.ID choice) {
+        return delegate.checkEvent(choice);
+    }
+
+    @Override
+    public Event peekEvent() {
+        return delegate.peekEvent();
+    }
+
+    @Override
+    public Event getEvent() {
+        if ((++events & DEADLINE_CHECK_INTERVAL) == 0) {
+            checkDeadline();
+        }
+        Event event = delegate.getEvent();
+        switch (event.getEventId()) {
+            case DocumentStart:
+                if (++documents > limit(limits.getMaxDocuments())) {
+                    throw new LimitExceededException("stream exceeds the maximum of " + limits.getMaxDocuments() + " documents");
+                }
+                documentNodes = 0;
+                documentAliases = 0;
+                collectionAnchors.clear();
+                break;
+            case MappingStart:
+            case SequenceStart:
+                node();
+                String anchor = ((CollectionStartEvent) event).getAnchor();
+                if (anchor != null) {
+                    collectionAnchors.add(anchor);
+                }
+                if (++depth > maxDepth) {
+                    maxDepth = depth;
+                    if (depth > limit(limits.getMaxDepth())) {
+                        throw new LimitExceededException("document exceeds the maximum nesting depth of " + limits.getMaxDepth());
+                    }
+                }
+                break;
+            case MappingEnd:
+            case SequenceEnd:
+                depth--;
+                break;
+            case Scalar:
+                node();
+                collectionAnchors.remove(((ScalarEvent) event).getAnchor());
+                break;
+            case Alias:
+                node();
+                if (collectionAnchors.contains(((AliasEvent) event).getAnchor())) {
+                    aliases++;
+                    if (++documentAliases > limit(limits.getMaxAliases())) {
+                        throw new LimitExceededException("document exceeds the maximum of " + limits.getMaxAliases() + " aliases of collections");
+                    }
+                }
+                break;
+            default:
+                break;
+        }
+        return event;
+    }
+
+    /**
+     * Give up if the deadline of the limits has passed or the thread was interrupted.
+     */
+    void checkDeadline() {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new ValidationTimeoutException("validation was cancelled");
+        }
+        if (timeoutNanos > 0 && System.nanoTime() - start > timeoutNanos) {
+            throw new ValidationTimeoutException("validation did not complete within " + limits.getTimeoutMillis() + " ms");
+        }
+    }
+
+    private void node() {
+        if (++documentNodes > limit(limits.getMaxNodes())) {
+            throw new LimitExceededException("document exceeds the maximum of " + limits.getMaxNodes() + " nodes");
+        }
+        if (++nodes > limit(limits.getMaxTotalNodes())) {
+            throw new LimitExceededException("stream exceeds the maximum of " + limits.getMaxTotalNodes() + " nodes in total");
+        }
+    }
+
+    private static int limit(Integer limit) {
+        return ValidationLimits.isSet(limit) ? limit : Integer.MAX_VALUE;
+    }
+
+    int getNodes() {
+        return nodes;
+    }
+
+    int getMaxDepth() {
+        return maxDepth;
+    }
+
+    int getAliases() {
+        return aliases;
+    }
+
+    int getDocuments() {
+        return documents;
+    }
+}
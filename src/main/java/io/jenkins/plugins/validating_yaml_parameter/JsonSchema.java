@@ -0,0 +1,739 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 csanchez.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.jenkins.plugins.validating_yaml_parameter;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+import org.yaml.snakeyaml.LoaderOptions;
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.constructor.SafeConstructor;
+import org.yaml.snakeyaml.error.YAMLException;
+import org.yaml.snakeyaml.nodes.MappingNode;
+import org.yaml.snakeyaml.nodes.Node;
+import org.yaml.snakeyaml.nodes.NodeTuple;
+import org.yaml.snakeyaml.nodes.ScalarNode;
+import org.yaml.snakeyaml.nodes.SequenceNode;
+import org.yaml.snakeyaml.nodes.Tag;
+
+/**
+ * A compiled JSON Schema, checked directly against the composed YAML node graph so that no
+ * Java object graph has to be built for the document.
+ *
+ * <p>The supported vocabulary covers what is needed to describe configuration documents:
+ * {@code type}, {@code enum}, {@code const}, {@code properties}, {@code required},
+ * {@code additionalProperties}, {@code patternProperties}, {@code minProperties},
+ * {@code maxProperties}, {@code items} (including the tuple form), {@code minItems},
+ * {@code maxItems}, {@code uniqueItems}, {@code minLength}, {@code maxLength}, {@code pattern},
+ * {@code minimum}, {@code maximum}, {@code exclusiveMinimum}, {@code exclusiveMaximum},
+ * {@code multipleOf}, {@code allOf}, {@code anyOf}, {@code oneOf}, {@code not} and local
+ * {@code $ref}s to {@code #}, {@code #/definitions/...} and {@code #/$defs/...}. Other keywords
+ * are ignored, as the specification requires for unknown keywords.
+ *
+ * <p>Values that refer to themselves through an alias are reported as violations rather than
+ * walked, and the walk gives up past {@link #MAX_CHECK_DEPTH} nested checks, which only a
+ * schema that refers to itself without descending into the value can reach.
+ *
+ * <p>Compiled schemas are immutable and cached by the digest of their text, so thousands of
+ * parameters sharing a schema compile it once.
+ *
+ * @author csanchez
+ */
+public final class JsonSchema {
+
+    private static final int MAX_CACHED_SCHEMAS = 64;
+    private static final int MAX_REPORTED_ERRORS = 5;
+    static final int MAX_CHECK_DEPTH = 1000;
+    private static final int CHECKPOINT_INTERVAL = 0x3FF;
+
+    private static final Map<String, JsonSchema> COMPILED = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, JsonSchema> eldest) {
+            return size() > MAX_CACHED_SCHEMAS;
+        }
+    };
+
+    private final String digest;
+    private final Schema root;
+
+    private JsonSchema(String digest, Schema root) {
+        this.digest = digest;
+        this.root = root;
+    }
+
+    /**
+     * Compile a schema written in JSON or YAML, reusing an earlier compilation of the same text.
+     *
+     * @throws IllegalArgumentException if the text is not a valid schema
+     */
+    public static JsonSchema compile(String text) {
+        String digest = ContentDigest.of("schema", text);
+        synchronized (COMPILED) {
+            JsonSchema schema = COMPILED.get(digest);
+            if (schema != null) {
+                return schema;
+            }
+        }
+        Object definition;
+        try {
+            definition = new Yaml(new SafeConstructor(new LoaderOptions())).load(text);
+        } catch (YAMLException e) {
+            throw new IllegalArgumentException("schema is not valid JSON or YAML: " + e.getMessage(), e);
+        }
+        JsonSchema schema = new JsonSchema(digest, new Compiler(definition).compileRoot());
+        synchronized (COMPILED) {
+            COMPILED.put(digest, schema);
+        }
+        return schema;
+    }
+
+    /**
+     * Digest of the schema text, used to tell schemas apart in cache keys.
+     */
+    public String getDigest() {
+        return digest;
+    }
+
+    /**
+     * Check a composed document against this schema.
+     *
+     * @param document the root node, {@code null} for an empty document
+     * @param scalars constructs the Java value of a scalar node, used for numbers and {@code enum}s
+     * @return the violations found, each prefixed with the path of the offending node; empty if the document is valid
+     */
+    List<String> validate(Node document, Function<ScalarNode, Object> scalars) {
+        return validate(document, scalars, () -> { });
+    }
+
+    /**
+     * Check a composed document against this schema, calling {@code checkpoint} every so often so
+     * that the caller can abandon a check that runs past its deadline by throwing from it.
+     */
+    List<String> validate(Node document, Function<ScalarNode, Object> scalars, Runnable checkpoint) {
+        if (isRecursive(document, checkpoint)) {
+            return List.of("$: value refers to itself through an alias and cannot be checked against a schema");
+        }
+        List<String> errors = new ArrayList<>();
+        new Validator(scalars, checkpoint).check(root, document, "$", errors);
+        return errors.size() > MAX_REPORTED_ERRORS ? errors.subList(0, MAX_REPORTED_ERRORS) : errors;
+    }
+
+    /**
+     * Whether a collection of the document contains itself, walking the node graph without recursion.
+     */
+    static boolean isRecursive(Node document, Runnable checkpoint) {
+        if (document == null) {
+            return false;
+        }
+        // false while a node is on the current path, true once all of its children were walked
+        Map<Node, Boolean> walked = new IdentityHashMap<>();
+        Deque<Node> path = new ArrayDeque<>();
+        Deque<Iterator<Node>> children = new ArrayDeque<>();
+        walked.put(document, false);
+        path.push(document);
+        children.push(childrenOf(document));
+        int visits = 0;
+        while (!children.isEmpty()) {
+            Iterator<Node> next = children.peek();
+            if (!next.hasNext()) {
+                children.pop();
+                walked.put(path.pop(), true);
+                continue;
+            }
+            Node child = next.next();
+            Boolean done = walked.get(child);
+            if (done == null) {
+                if ((++visits & CHECKPOINT_INTERVAL) == 0) {
+                    checkpoint.run();
+                }
+                walked.put(child, false);
+                path.push(child);
+                children.push(childrenOf(child));
+            } else if (!done) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Iterator<Node> childrenOf(Node node) {
+        if (node instanceof MappingNode mapping) {
+            List<Node> nodes = new ArrayList<>(2 * mapping.getValue().size());
+            for (NodeTuple tuple : mapping.getValue()) {
+                nodes.add(tuple.getKeyNode());
+                nodes.add(tuple.getValueNode());
+            }
+            return nodes.iterator();
+        }
+        if (node instanceof SequenceNode sequence) {
+            return sequence.getValue().iterator();
+        }
+        return Collections.emptyIterator();
+    }
+
+    /**
+     * One compiled (sub)schema. Unset keywords are {@code null}.
+     */
+    private static final class Schema {
+        Boolean constant;
+        Set<String> types;
+        List<Object> enumValues;
+        boolean hasConst;
+        Object constValue;
+        Map<String, Schema> properties;
+        Map<Pattern, Schema> patternProperties;
+        Schema additionalProperties;
+        Set<String> required;
+        Integer minProperties;
+        Integer maxProperties;
+        Schema items;
+        List<Schema> prefixItems;
+        Integer minItems;
+        Integer maxItems;
+        boolean uniqueItems;
+        Integer minLength;
+        Integer maxLength;
+        Pattern pattern;
+        BigDecimal minimum;
+        BigDecimal maximum;
+        BigDecimal exclusiveMinimum;
+        BigDecimal exclusiveMaximum;
+        BigDecimal multipleOf;
+        List<Schema> allOf;
+        List<Schema> anyOf;
+        List<Schema> oneOf;
+        Schema not;
+        String ref;
+        Schema resolved;
+    }
+
+    private static final class Compiler {
+
+        private final Object rootDefinition;
+        private final Map<String, Schema> pointers = new HashMap<>();
+        private final List<Schema> references = new ArrayList<>();
+        /** Definitions being compiled, so that one nesting itself through an alias is turned down. */
+        private final Set<Object> compiling = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        Compiler(Object rootDefinition) {
+            this.rootDefinition = rootDefinition;
+        }
+
+        Schema compileRoot() {
+            Schema root = compile(rootDefinition, "#");
+            for (Schema schema : references) {
+                schema.resolved = pointers.get(schema.ref);
+                if (schema.resolved == null) {
+                    throw new IllegalArgumentException("unresolvable $ref " + schema.ref);
+                }
+            }
+            return root;
+        }
+
+        private Schema compile(Object definition, String pointer) {
+            Schema schema = new Schema();
+            pointers.put(pointer, schema);
+            if (definition instanceof Boolean b) {
+                schema.constant = b;
+                return schema;
+            }
+            if (!(definition instanceof Map<?, ?> map)) {
+                throw new IllegalArgumentException("schema at " + pointer + " must be an object or a boolean");
+            }
+            if (!compiling.add(map)) {
+                throw new IllegalArgumentException("recursive schema at " + pointer);
+            }
+            try {
+                compileKeywords(schema, map, pointer);
+            } finally {
+                compiling.remove(map);
+            }
+            return schema;
+        }
+
+        private void compileKeywords(Schema schema, Map<?, ?> map, String pointer) {
+            for (String container : List.of("definitions", "$defs")) {
+                if (map.get(container) instanceof Map<?, ?> defs) {
+                    for (Map.Entry<?, ?> e : defs.entrySet()) {
+                        compile(e.getValue(), pointer + "/" + container + "/" + e.getKey());
+                    }
+                }
+            }
+            if (map.get("$ref") instanceof String ref) {
+                schema.ref = ref;
+                references.add(schema);
+            }
+            Object type = map.get("type");
+            if (type instanceof String t) {
+                schema.types = Set.of(t);
+            } else if (type instanceof List<?> list) {
+                schema.types = new HashSet<>();
+                for (Object t : list) {
+                    schema.types.add(String.valueOf(t));
+                }
+            }
+            if (map.get("enum") instanceof List<?> values) {
+                schema.enumValues = new ArrayList<>(values);
+            }
+            if (map.containsKey("const")) {
+                schema.hasConst = true;
+                schema.constValue = map.get("const");
+            }
+            if (map.get("properties") instanceof Map<?, ?> properties) {
+                schema.properties = new LinkedHashMap<>();
+                for (Map.Entry<?, ?> e : properties.entrySet()) {
+                    String name = String.valueOf(e.getKey());
+                    schema.properties.put(name, compile(e.getValue(), pointer + "/properties/" + name));
+                }
+            }
+            if (map.get("patternProperties") instanceof Map<?, ?> patterns) {
+                schema.patternProperties = new LinkedHashMap<>();
+                for (Map.Entry<?, ?> e : patterns.entrySet()) {
+                    String regex = String.valueOf(e.getKey());
+                    schema.patternProperties.put(pattern(regex, pointer), compile(e.getValue(), pointer + "/patternProperties/" + regex));
+                }
+            }
+            if (map.containsKey("additionalProperties")) {
+                schema.additionalProperties = compile(map.get("additionalProperties"), pointer + "/additionalProperties");
+            }
+            if (map.get("required") instanceof List<?> required) {
+                schema.required = new HashSet<>();
+                for (Object name : required) {
+                    schema.required.add(String.valueOf(name));
+                }
+            }
+            schema.minProperties = integer(map, "minProperties", pointer);
+            schema.maxProperties = integer(map, "maxProperties", pointer);
+            Object items = map.get("items");
+            if (items instanceof List<?> tuple) {
+                schema.prefixItems = compileAll(tuple, pointer + "/items");
+                if (map.containsKey("additionalItems")) {
+                    schema.items = compile(map.get("additionalItems"), pointer + "/additionalItems");
+                }
+            } else if (items != null) {
+                schema.items = compile(items, pointer + "/items");
+            }
+            if (map.get("prefixItems") instanceof List<?> tuple) {
+                schema.prefixItems = compileAll(tuple, pointer + "/prefixItems");
+            }
+            schema.minItems = integer(map, "minItems", pointer);
+            schema.maxItems = integer(map, "maxItems", pointer);
+            schema.uniqueItems = Boolean.TRUE.equals(map.get("uniqueItems"));
+            schema.minLength = integer(map, "minLength", pointer);
+            schema.maxLength = integer(map, "maxLength", pointer);
+            if (map.get("pattern") instanceof String regex) {
+                schema.pattern = pattern(regex, pointer);
+            }
+            schema.minimum = number(map, "minimum", pointer);
+            schema.maximum = number(map, "maximum", pointer);
+            schema.exclusiveMinimum = number(map, "exclusiveMinimum", pointer);
+            schema.exclusiveMaximum = number(map, "exclusiveMaximum", pointer);
+            schema.multipleOf = number(map, "multipleOf", pointer);
+            if (map.get("allOf") instanceof List<?> list) {
+                schema.allOf = compileAll(list, pointer + "/allOf");
+            }
+            if (map.get("anyOf") instanceof List<?> list) {
+                schema.anyOf = compileAll(list, pointer + "/anyOf");
+            }
+            if (map.get("oneOf") instanceof List<?> list) {
+                schema.oneOf = compileAll(list, pointer + "/oneOf");
+            }
+            if (map.containsKey("not")) {
+                schema.not = compile(map.get("not"), pointer + "/not");
+            }
+        }
+
+        private List<Schema> compileAll(List<?> definitions, String pointer) {
+            List<Schema> schemas = new ArrayList<>();
+            for (int i = 0; i < definitions.size(); i++) {
+                schemas.add(compile(definitions.get(i), pointer + "/" + i));
+            }
+            return schemas;
+        }
+
+        private static Pattern pattern(String regex, String pointer) {
+            try {
+                return Pattern.compile(regex);
+            } catch (PatternSyntaxException e) {
+                throw new IllegalArgumentException("invalid pattern at " + pointer + ": " + e.getDescription(), e);
+            }
+        }
+
+        private static Integer integer(Map<?, ?> map, String keyword, String pointer) {
+            Object value = map.get(keyword);
+            if (value == null) {
+                return null;
+            }
+            if (!(value instanceof Integer i)) {
+                throw new IllegalArgumentException(keyword + " at " + pointer + " must be an integer");
+            }
+            return i;
+        }
+
+        private static BigDecimal number(Map<?, ?> map, String keyword, String pointer) {
+            Object value = map.get(keyword);
+            if (value == null || value instanceof Boolean) {
+                // draft-04 boolean exclusiveMinimum/exclusiveMaximum are not supported and ignored
+                return null;
+            }
+            BigDecimal number = decimal(value);
+            if (number == null) {
+                throw new IllegalArgumentException(keyword + " at " + pointer + " must be a number");
+            }
+            return number;
+        }
+    }
+
+    private static final class Validator {
+
+        private final Function<ScalarNode, Object> scalars;
+        private final Runnable checkpoint;
+        private int checks;
+        private int depth;
+
+        Validator(Function<ScalarNode, Object> scalars, Runnable checkpoint) {
+            this.scalars = scalars;
+            this.checkpoint = checkpoint;
+        }
+
+        void check(Schema schema, Node node, String path, List<String> errors) {
+            if ((++checks & CHECKPOINT_INTERVAL) == 0) {
+                checkpoint.run();
+            }
+            if (depth == MAX_CHECK_DEPTH) {
+                errors.add(path + ": the schema nests more than " + MAX_CHECK_DEPTH + " checks deep");
+                return;
+            }
+            depth++;
+            try {
+                checkNode(schema, node, path, errors);
+            } finally {
+                depth--;
+            }
+        }
+
+        private void checkNode(Schema schema, Node node, String path, List<String> errors) {
+            if (schema.resolved != null) {
+                check(schema.resolved, node, path, errors);
+            }
+            if (schema.constant != null) {
+                if (!schema.constant) {
+                    errors.add(path + ": no value is allowed here");
+                }
+                return;
+            }
+            String type = typeOf(node);
+            if (schema.types != null && !schema.types.contains(type)
+                    && !("integer".equals(type) && schema.types.contains("number"))) {
+                errors.add(path + ": expected " + String.join(" or ", schema.types) + " but found " + type);
+                return;
+            }
+            if (schema.enumValues != null && schema.enumValues.stream().noneMatch(v -> same(v, valueOf(node)))) {
+                errors.add(path + ": value is not one of " + schema.enumValues);
+            }
+            if (schema.hasConst && !same(schema.constValue, valueOf(node))) {
+                errors.add(path + ": value must be " + schema.constValue);
+            }
+            switch (type) {
+                case "object":
+                    checkObject(schema, (MappingNode) node, path, errors);
+                    break;
+                case "array":
+                    checkArray(schema, (SequenceNode) node, path, errors);
+                    break;
+                case "string":
+                    checkString(schema, node == null ? "" : ((ScalarNode) node).getValue(), path, errors);
+                    break;
+                case "integer":
+                case "number":
+                    checkNumber(schema, decimal(valueOf(node)), path, errors);
+                    break;
+                default:
+                    break;
+            }
+            if (schema.allOf != null) {
+                for (Schema s : schema.allOf) {
+                    check(s, node, path, errors);
+                }
+            }
+            if (schema.anyOf != null && schema.anyOf.stream().noneMatch(s -> matches(s, node, path))) {
+                errors.add(path + ": value does not match any of the allowed schemas");
+            }
+            if (schema.oneOf != null) {
+                long matching = schema.oneOf.stream().filter(s -> matches(s, node, path)).count();
+                if (matching != 1) {
+                    errors.add(path + ": value matches " + matching + " of the schemas instead of exactly one");
+                }
+            }
+            if (schema.not != null && matches(schema.not, node, path)) {
+                errors.add(path + ": value matches a schema it must not match");
+            }
+        }
+
+        private boolean matches(Schema schema, Node node, String path) {
+            List<String> errors = new ArrayList<>();
+            check(schema, node, path, errors);
+            return errors.isEmpty();
+        }
+
+        private void checkObject(Schema schema, MappingNode node, String path, List<String> errors) {
+            Map<String, Node> entries = entries(node);
+            if (schema.required != null) {
+                for (String name : schema.required) {
+                    if (!entries.containsKey(name)) {
+                        errors.add(path + ": missing required property '" + name + "'");
+                    }
+                }
+            }
+            if (schema.minProperties != null && entries.size() < schema.minProperties) {
+                errors.add(path + ": expected at least " + schema.minProperties + " properties");
+            }
+            if (schema.maxProperties != null && entries.size() > schema.maxProperties) {
+                errors.add(path + ": expected at most " + schema.maxProperties + " properties");
+            }
+            for (Map.Entry<String, Node> e : entries.entrySet()) {
+                String childPath = path + segment(e.getKey());
+                boolean declared = false;
+                if (schema.properties != null && schema.properties.containsKey(e.getKey())) {
+                    declared = true;
+                    check(schema.properties.get(e.getKey()), e.getValue(), childPath, errors);
+                }
+                if (schema.patternProperties != null) {
+                    for (Map.Entry<Pattern, Schema> p : schema.patternProperties.entrySet()) {
+                        if (p.getKey().matcher(e.getKey()).find()) {
+                            declared = true;
+                            check(p.getValue(), e.getValue(), childPath, errors);
+                        }
+                    }
+                }
+                if (!declared && schema.additionalProperties != null) {
+                    if (Boolean.FALSE.equals(schema.additionalProperties.constant)) {
+                        errors.add(childPath + ": property is not allowed");
+                    } else {
+                        check(schema.additionalProperties, e.getValue(), childPath, errors);
+                    }
+                }
+            }
+        }
+
+        private void checkArray(Schema schema, SequenceNode node, String path, List<String> errors) {
+            List<Node> items = node.getValue();
+            if (schema.minItems != null && items.size() < schema.minItems) {
+                errors.add(path + ": expected at least " + schema.minItems + " items");
+            }
+            if (schema.maxItems != null && items.size() > schema.maxItems) {
+                errors.add(path + ": expected at most " + schema.maxItems + " items");
+            }
+            for (int i = 0; i < items.size(); i++) {
+                Schema itemSchema = schema.prefixItems != null && i < schema.prefixItems.size() ? schema.prefixItems.get(i) : schema.items;
+                if (itemSchema != null) {
+                    check(itemSchema, items.get(i), path + "[" + i + "]", errors);
+                }
+            }
+            if (schema.uniqueItems) {
+                Set<Object> seen = new HashSet<>();
+                for (Node item : items) {
+                    if (!seen.add(normalize(valueOf(item)))) {
+                        errors.add(path + ": items must be unique");
+                        break;
+                    }
+                }
+            }
+        }
+
+        private static void checkString(Schema schema, String value, String path, List<String> errors) {
+            int length = value.codePointCount(0, value.length());
+            if (schema.minLength != null && length < schema.minLength) {
+                errors.add(path + ": expected at least " + schema.minLength + " characters");
+            }
+            if (schema.maxLength != null && length > schema.maxLength) {
+                errors.add(path + ": expected at most " + schema.maxLength + " characters");
+            }
+            if (schema.pattern != null && !schema.pattern.matcher(value).find()) {
+                errors.add(path + ": value does not match pattern " + schema.pattern.pattern());
+            }
+        }
+
+        private static void checkNumber(Schema schema, BigDecimal value, String path, List<String> errors) {
+            if (value == null) {
+                // .nan and .inf have no decimal representation to compare
+                return;
+            }
+            if (schema.minimum != null && value.compareTo(schema.minimum) < 0) {
+                errors.add(path + ": value must be at least " + schema.minimum);
+            }
+            if (schema.maximum != null && value.compareTo(schema.maximum) > 0) {
+                errors.add(path + ": value must be at most " + schema.maximum);
+            }
+            if (schema.exclusiveMinimum != null && value.compareTo(schema.exclusiveMinimum) <= 0) {
+                errors.add(path + ": value must be greater than " + schema.exclusiveMinimum);
+            }
+            if (schema.exclusiveMaximum != null && value.compareTo(schema.exclusiveMaximum) >= 0) {
+                errors.add(path + ": value must be less than " + schema.exclusiveMaximum);
+            }
+            if (schema.multipleOf != null && schema.multipleOf.signum() > 0
+                    && value.remainder(schema.multipleOf).signum() != 0) {
+                errors.add(path + ": value must be a multiple of " + schema.multipleOf);
+            }
+        }
+
+        private static String typeOf(Node node) {
+            if (node == null) {
+                return "null";
+            }
+            if (node instanceof MappingNode) {
+                return "object";
+            }
+            if (node instanceof SequenceNode) {
+                return "array";
+            }
+            Tag tag = node.getTag();
+            if (Tag.INT.equals(tag)) {
+                return "integer";
+            }
+            if (Tag.FLOAT.equals(tag)) {
+                return "number";
+            }
+            if (Tag.BOOL.equals(tag)) {
+                return "boolean";
+            }
+            if (Tag.NULL.equals(tag)) {
+                return "null";
+            }
+            return "string";
+        }
+
+        /**
+         * Plain Java value of a node, comparable with values from the schema.
+         */
+        private Object valueOf(Node node) {
+            if (node == null) {
+                return null;
+            }
+            if (node instanceof MappingNode mapping) {
+                Map<String, Object> map = new LinkedHashMap<>();
+                for (Map.Entry<String, Node> e : entries(mapping).entrySet()) {
+                    map.put(e.getKey(), valueOf(e.getValue()));
+                }
+                return map;
+            }
+            if (node instanceof SequenceNode sequence) {
+                List<Object> list = new ArrayList<>();
+                for (Node item : sequence.getValue()) {
+                    list.add(valueOf(item));
+                }
+                return list;
+            }
+            String type = typeOf(node);
+            return "string".equals(type) ? ((ScalarNode) node).getValue() : scalars.apply((ScalarNode) node);
+        }
+
+        /**
+         * Entries of a mapping by key, with {@code <<} merge keys flattened the way SnakeYAML constructs them.
+         */
+        private static Map<String, Node> entries(MappingNode node) {
+            Map<String, Node> entries = new LinkedHashMap<>();
+            List<Node> merged = new ArrayList<>();
+            for (NodeTuple tuple : node.getValue()) {
+                Node key = tuple.getKeyNode();
+                if (Tag.MERGE.equals(key.getTag())) {
+                    Node value = tuple.getValueNode();
+                    if (value instanceof SequenceNode sequence) {
+                        merged.addAll(sequence.getValue());
+                    } else {
+                        merged.add(value);
+                    }
+                } else {
+                    entries.put(key instanceof ScalarNode scalar ? scalar.getValue() : key.toString(), tuple.getValueNode());
+                }
+            }
+            for (Node m : merged) {
+                if (m instanceof MappingNode mapping) {
+                    entries(mapping).forEach(entries::putIfAbsent);
+                }
+            }
+            return entries;
+        }
+
+        private static String segment(String key) {
+            return key.matches("[A-Za-z_][A-Za-z0-9_-]*") ? "." + key : "['" + key.replace("'", "\\'") + "']";
+        }
+    }
+
+    private static BigDecimal decimal(Object value) {
+        if (value instanceof BigDecimal d) {
+            return d;
+        }
+        if (value instanceof BigInteger i) {
+            return new BigDecimal(i);
+        }
+        if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return BigDecimal.valueOf(((Number) value).longValue());
+        }
+        if (value instanceof Number n && Double.isFinite(n.doubleValue())) {
+            return new BigDecimal(n.toString());
+        }
+        return null;
+    }
+
+    /**
+     * Numbers compare by value whatever their Java type, as JSON has a single number type.
+     */
+    private static Object normalize(Object value) {
+        BigDecimal number = value instanceof Number ? decimal(value) : null;
+        if (number != null) {
+            return number.stripTrailingZeros();
+        }
+        if (value instanceof Map<?, ?> map) {
+            Map<Object, Object> normalized = new HashMap<>();
+            map.forEach((k, v) -> normalized.put(String.valueOf(k), normalize(v)));
+            return normalized;
+        }
+        if (value instanceof List<?> list) {
+            List<Object> normalized = new ArrayList<>();
+            list.forEach(v -> normalized.add(normalize(v)));
+            return Collections.unmodifiableList(normalized);
+        }
+        return value;
+    }
+
+    private static boolean same(Object a, Object b) {
+        return Objects.equals(normalize(a), normalize(b));
+    }
+}
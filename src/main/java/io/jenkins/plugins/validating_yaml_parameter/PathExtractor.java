@@ -0,0 +1,303 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 csanchez.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.jenkins.plugins.validating_yaml_parameter;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.yaml.snakeyaml.events.AliasEvent;
+import org.yaml.snakeyaml.events.Event;
+import org.yaml.snakeyaml.events.NodeEvent;
+import org.yaml.snakeyaml.events.ScalarEvent;
+import org.yaml.snakeyaml.parser.Parser;
+
+/**
+ * Pulls the scalars at a few paths out of a YAML document in one pass over the parser events,
+ * without building the document, and stops reading as soon as the value of every path is known.
+ *
+ * <p>Paths are written one per line as dot-separated keys with optional list indexes, such as
+ * {@code image.tag} or {@code containers[0].name}, optionally preceded by the name of the
+ * variable to export them as: {@code TAG=image.tag}. Blank lines and lines starting with
+ * {@code #} are ignored. Paths that do not lead to a scalar are not exported; merge keys are
+ * not followed, and neither are aliases of collections. A variable may only be exported from one
+ * path, although a path may be listed more than once.
+ *
+ * <p>When a key is repeated in a mapping the last occurrence wins, as it does when the document is
+ * loaded, and paths that only existed under an earlier occurrence are not exported. A value is
+ * therefore only known once the outermost mapping along its path has ended: paths under a
+ * top-level mapping are read until the end of the document, while reading stops early for paths
+ * that go through the items of a top-level sequence.
+ *
+ * <p>A value that may hold several documents is read as a sequence of its documents, as
+ * {@code readYamlParameter} returns it: {@code [1].image.tag} is the tag of the second document.
+ *
+ * @author csanchez
+ */
+public final class PathExtractor {
+
+    private static final Pattern LINE = Pattern.compile("(?:([A-Za-z_][A-Za-z0-9_]*)\\s*=\\s*)?(\\S+)");
+    private static final Pattern SEGMENT = Pattern.compile("([^.\\[\\]]+)|\\[(\\d+)\\]");
+
+    private final Step root;
+    /** Number of distinct paths to export. */
+    private final int paths;
+
+    private PathExtractor(Step root, int paths) {
+        this.root = root;
+        this.paths = paths;
+    }
+
+    /**
+     * Compile the paths to export for the parameter called {@code name}.
+     *
+     * @throws IllegalArgumentException if a line is not a valid path
+     */
+    public static PathExtractor compile(String name, String exportPaths) {
+        List<String[]> lines = new ArrayList<>();
+        if (exportPaths != null) {
+            for (String line : exportPaths.split("\\R")) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                Matcher m = LINE.matcher(line);
+                if (!m.matches()) {
+                    throw new IllegalArgumentException("invalid export path '" + line + "'");
+                }
+                lines.add(new String[] {m.group(1), m.group(2)});
+            }
+        }
+        Step root = new Step();
+        Map<String, Step> exporters = new HashMap<>();
+        Set<Step> targets = new HashSet<>();
+        for (String[] line : lines) {
+            String path = line[1];
+            String variable = line[0] != null ? line[0] : defaultVariable(name, path);
+            Step step = root;
+            Matcher m = SEGMENT.matcher(path);
+            int end = 0;
+            while (m.find()) {
+                if (m.start() != end && !(m.start() == end + 1 && path.charAt(end) == '.' && end > 0)) {
+                    throw new IllegalArgumentException("invalid export path '" + path + "'");
+                }
+                end = m.end();
+                step = m.group(1) != null ? step.key(m.group(1)) : step.index(Integer.parseInt(m.group(2)));
+            }
+            if (end != path.length() || step == root) {
+                throw new IllegalArgumentException("invalid export path '" + path + "'");
+            }
+            Step exporter = exporters.putIfAbsent(variable, step);
+            if (exporter != null && exporter != step) {
+                throw new IllegalArgumentException("variable " + variable + " is exported from more than one path");
+            }
+            step.variables.add(variable);
+            targets.add(step);
+        }
+        return new PathExtractor(root, targets.size());
+    }
+
+    /**
+     * {@code NAME_IMAGE_TAG} for the path {@code image.tag} of parameter {@code NAME}.
+     */
+    static String defaultVariable(String name, String path) {
+        return (name + '_' + path).replaceAll("[^A-Za-z0-9_]+", "_").replaceAll("_+$", "").toUpperCase(Locale.ROOT);
+    }
+
+    public boolean isEmpty() {
+        return paths == 0;
+    }
+
+    /**
+     * Read events from {@code parser} until the value of every path is known or the document ends.
+     *
+     * @return the value of every path found, by variable name
+     */
+    public Map<String, String> extract(Parser parser) {
+        return extract(parser, false);
+    }
+
+    /**
+     * Read events from {@code parser} until the value of every path is known or the stream ends.
+     *
+     * @param multiDocument whether to read every document of the stream, as the items of a sequence,
+     *                      rather than the first one only
+     * @return the value of every path found, by variable name
+     */
+    public Map<String, String> extract(Parser parser, boolean multiDocument) {
+        if (isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<Step, String> found = new LinkedHashMap<>();
+        Set<Step> settled = new HashSet<>();
+        Map<String, String> scalarAnchors = new HashMap<>();
+        Deque<Frame> open = new ArrayDeque<>();
+        if (multiDocument) {
+            open.push(new Frame(root, false));
+        }
+        boolean started = false;
+        while (settled.size() < paths && !parser.checkEvent(Event.ID.StreamEnd)) {
+            Event event = parser.getEvent();
+            Event.ID id = event.getEventId();
+            if (id == Event.ID.DocumentStart) {
+                // anchors do not carry over from one document to the next
+                scalarAnchors.clear();
+                continue;
+            }
+            if (id == Event.ID.SequenceEnd || id == Event.ID.MappingEnd) {
+                for (Step step : open.pop().unsettled) {
+                    if (found.containsKey(step)) {
+                        settled.add(step);
+                    }
+                }
+                continue;
+            }
+            if (!(event instanceof NodeEvent node)) {
+                continue;
+            }
+            Step target;
+            Frame parent = open.peek();
+            if (parent == null) {
+                if (started) {
+                    // only the first document is read
+                    break;
+                }
+                started = true;
+                target = root;
+            } else if (parent.mapping && parent.expectingKey) {
+                parent.expectingKey = false;
+                parent.pending = parent.step != null && event instanceof ScalarEvent key ? parent.step.keys.get(key.getValue()) : null;
+                if (parent.pending != null) {
+                    // a repeated key replaces everything found under its earlier occurrence
+                    forget(parent.pending, found);
+                }
+                target = null;
+            } else if (parent.mapping) {
+                parent.expectingKey = true;
+                target = parent.pending;
+            } else {
+                target = parent.step == null ? null : parent.step.indexes.get(parent.index);
+                parent.index++;
+            }
+
+            if (id == Event.ID.SequenceStart || id == Event.ID.MappingStart) {
+                open.push(new Frame(target, id == Event.ID.MappingStart));
+                continue;
+            }
+            String value = null;
+            if (event instanceof ScalarEvent scalar) {
+                value = scalar.getValue();
+                if (scalar.getAnchor() != null) {
+                    scalarAnchors.put(scalar.getAnchor(), value);
+                }
+            } else if (event instanceof AliasEvent alias) {
+                value = scalarAnchors.get(alias.getAnchor());
+            }
+            if (target != null && value != null && !target.variables.isEmpty()) {
+                found.put(target, value);
+                Frame outermost = outermostMapping(open);
+                if (outermost == null) {
+                    settled.add(target);
+                } else {
+                    outermost.unsettled.add(target);
+                }
+            }
+        }
+        Map<String, String> values = new LinkedHashMap<>();
+        for (Map.Entry<Step, String> entry : found.entrySet()) {
+            for (String variable : entry.getKey().variables) {
+                values.put(variable, entry.getValue());
+            }
+        }
+        return values;
+    }
+
+    /**
+     * The mapping closest to the root of the document among the open collections, in which a repeated key
+     * could still replace the value just read.
+     */
+    private static Frame outermostMapping(Deque<Frame> open) {
+        for (Iterator<Frame> frames = open.descendingIterator(); frames.hasNext();) {
+            Frame frame = frames.next();
+            if (frame.mapping) {
+                return frame;
+            }
+        }
+        return null;
+    }
+
+    private static void forget(Step step, Map<Step, String> found) {
+        found.remove(step);
+        for (Step key : step.keys.values()) {
+            forget(key, found);
+        }
+        for (Step index : step.indexes.values()) {
+            forget(index, found);
+        }
+    }
+
+    /**
+     * One step along the compiled paths.
+     */
+    private static final class Step {
+        final Map<String, Step> keys = new HashMap<>();
+        final Map<Integer, Step> indexes = new HashMap<>();
+        final Set<String> variables = new LinkedHashSet<>();
+
+        Step key(String key) {
+            return keys.computeIfAbsent(key, k -> new Step());
+        }
+
+        Step index(int index) {
+            return indexes.computeIfAbsent(index, i -> new Step());
+        }
+    }
+
+    private static final class Frame {
+        /** Paths that continue into this collection, {@code null} if none does. */
+        final Step step;
+        final boolean mapping;
+        boolean expectingKey = true;
+        Step pending;
+        int index;
+        /** Paths found under this mapping while it is the outermost one open. */
+        final List<Step> unsettled = new ArrayList<>();
+
+        Frame(Step step, boolean mapping) {
+            this.step = step != null && (mapping ? !step.keys.isEmpty() : !step.indexes.isEmpty()) ? step : null;
+            this.mapping = mapping;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 csanchez.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.jenkins.plugins.validating_yaml_parameter;
+
+import hudson.AbortException;
+import hudson.Extension;
+import hudson.model.ParameterValue;
+import hudson.model.ParametersAction;
+import hudson.model.Run;
+import java.io.Serial;
+import java.util.Set;
+import org.jenkinsci.plugins.workflow.steps.Step;
+import org.jenkinsci.plugins.workflow.steps.StepContext;
+import org.jenkinsci.plugins.workflow.steps.StepDescriptor;
+import org.jenkinsci.plugins.workflow.steps.StepExecution;
+import org.jenkinsci.plugins.workflow.steps.SynchronousNonBlockingStepExecution;
+import org.kohsuke.stapler.DataBoundConstructor;
+
+/**
+ * {@code readYamlParameter 'NAME'} returns the value of a validating YAML parameter of the
+ * current build as read-only maps and lists, parsed at most once per build.
+ *
+ * @author csanchez
+ */
+public class ReadYamlParameterStep extends Step {
+
+    private final String name;
+
+    @DataBoundConstructor
+    public ReadYamlParameterStep(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public StepExecution start(StepContext context) throws Exception {
+        return new Execution(context, name);
+    }
+
+    private static class Execution extends SynchronousNonBlockingStepExecution<Object> {
+
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final String name;
+
+        Execution(StepContext context, String name) {
+            super(context);
+            this.name = name;
+        }
+
+        @Override
+        protected Object run() throws Exception {
+            Run<?, ?> run = getContext().get(Run.class);
+            ParametersAction parameters = run.getAction(ParametersAction.class);
+            ParameterValue value = parameters == null ? null : parameters.getParameter(name);
+            if (!(value instanceof ValidatingYamlParameterValue yaml)) {
+                throw new AbortException("Build has no validating YAML parameter named [" + name + "]");
+            }
+            return yaml.getDocument();
+        }
+    }
+
+    @Extension(optional = true)
+    public static class DescriptorImpl extends StepDescriptor {
+
+        @Override
+        public Set<? extends Class<?>> getRequiredContext() {
+            return Set.of(Run.class);
+        }
+
+        @Override
+        public String getFunctionName() {
+            return "readYamlParameter";
+        }
+
+        @Override
+        public String getDisplayName() {
+            return "Read a validating YAML parameter";
+        }
+    }
+}
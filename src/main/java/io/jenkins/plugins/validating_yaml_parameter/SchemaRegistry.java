@@ -0,0 +1,99 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 csanchez.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.jenkins.plugins.validating_yaml_parameter;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The compiled schemas of the global configuration, shared by every job.
+ *
+ * <p>Readers see an immutable snapshot. When the configuration changes, every schema is
+ * compiled first and the new snapshot is then published with a single write, so a validation
+ * never sees a half-updated registry. A schema that no longer compiles keeps its previous
+ * version instead of disappearing from under the jobs that use it.
+ *
+ * @author csanchez
+ */
+public final class SchemaRegistry {
+
+    private static final Logger LOGGER = Logger.getLogger(SchemaRegistry.class.getName());
+
+    private static final SchemaRegistry INSTANCE = new SchemaRegistry();
+
+    private volatile Map<String, JsonSchema> schemas = Map.of();
+
+    SchemaRegistry() {
+    }
+
+    public static SchemaRegistry get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Compile {@code definitions} and replace the current schemas with them.
+     */
+    void update(List<NamedSchema> definitions) {
+        Map<String, JsonSchema> previous = schemas;
+        Map<String, JsonSchema> compiled = new HashMap<>();
+        if (definitions != null) {
+            for (NamedSchema definition : definitions) {
+                String id = definition.getId();
+                if (id == null || id.isEmpty() || definition.getSchema() == null) {
+                    continue;
+                }
+                if (compiled.containsKey(id)) {
+                    LOGGER.log(Level.WARNING, "Ignoring duplicate YAML parameter schema {0}", id);
+                    continue;
+                }
+                try {
+                    compiled.put(id, JsonSchema.compile(definition.getSchema()));
+                } catch (IllegalArgumentException e) {
+                    LOGGER.log(Level.WARNING, "YAML parameter schema " + id + " does not compile, keeping its previous version", e);
+                    if (previous.containsKey(id)) {
+                        compiled.put(id, previous.get(id));
+                    }
+                }
+            }
+        }
+        schemas = Collections.unmodifiableMap(compiled);
+    }
+
+    /**
+     * The schema registered as {@code id}, or {@code null} if there is none.
+     */
+    public JsonSchema lookup(String id) {
+        return id == null ? null : schemas.get(id);
+    }
+
+    public Set<String> getIds() {
+        return Collections.unmodifiableSet(new TreeSet<>(schemas.keySet()));
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 csanchez.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.jenkins.plugins.validating_yaml_parameter;
+
+import hudson.model.Failure;
+import hudson.model.Job;
+import hudson.model.ParameterDefinition;
+import hudson.model.ParametersDefinitionProperty;
+import jakarta.servlet.ServletException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import jenkins.util.SystemProperties;
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
+import org.kohsuke.stapler.StaplerRequest2;
+
+/**
+ * Validates all the YAML parameters of a build trigger at once.
+ *
+ * <p>Jenkins creates the values of a trigger one parameter after the other, so a job with many
+ * YAML parameters would wait for each validation in turn. Instead, the first of them to be created
+ * looks up the values of all the others in the request and validates them together, in parallel on
+ * a pool of its own, and keeps the results in the request for the others to pick up. If any value
+ * is turned down, the trigger fails right there with a report of every parameter that was, rather
+ * than at the first one in the order of the form.
+ *
+ * <p>Each value is validated in place on the pool whatever its size, so that a trigger never waits
+ * behind a {@link BatchValidation} filling up the pool of {@link YamlValidator}. The queue of the
+ * pool is bounded; when it is full, each parameter validates its own value as it is created.
+ *
+ * @author csanchez
+ */
+final class TriggerValidation {
+
+    static final String ATTRIBUTE = TriggerValidation.class.getName();
+    static final int PARALLELISM = SystemProperties.getInteger(TriggerValidation.class.getName() + ".parallelism", YamlValidator.THREADS);
+
+    static final int QUEUE_DEPTH = SystemProperties.getInteger(TriggerValidation.class.getName() + ".queueDepth", YamlValidator.QUEUE_DEPTH);
+
+    private static final ExecutorService POOL = YamlValidator.newExecutor("YamlValidator trigger", PARALLELISM, QUEUE_DEPTH);
+
+    private final Map<String, String> values = new LinkedHashMap<>();
+    private final Map<String, ValidationResult> results = new LinkedHashMap<>();
+
+    private TriggerValidation() {
+    }
+
+    /**
+     * Value given to the parameter of {@code definition}.
+     */
+    record Candidate(ValidatingYamlParameterDefinition definition, String value) {
+    }
+
+    /**
+     * Result of {@code value} for {@code definition} from the validation of the whole trigger, done on
+     * the first call for a request.
+     *
+     * @return the result, {@code null} if {@code definition} has to validate the value itself
+     * @throws Failure if any YAML parameter of the trigger was turned down
+     */
+    static ValidationResult resultFor(StaplerRequest2 req, ValidatingYamlParameterDefinition definition, String value,
+            ValidationEntryPoint entryPoint) {
+        if (req == null) {
+            return null;
+        }
+        TriggerValidation trigger;
+        if (req.getAttribute(ATTRIBUTE) instanceof TriggerValidation done) {
+            trigger = done;
+        } else {
+            Job<?, ?> job = req.findAncestorObject(Job.class);
+            ParametersDefinitionProperty property = job == null ? null : job.getProperty(ParametersDefinitionProperty.class);
+            if (property == null) {
+                return null;
+            }
+            Map<String, Candidate> values = entryPoint == ValidationEntryPoint.SUBMISSION
+                    ? submittedValues(req, property)
+                    : requestValues(req, property);
+            trigger = validate(values, entryPoint, job.getFullName());
+            req.setAttribute(ATTRIBUTE, trigger);
+            String report = trigger.describeFailures(values, entryPoint);
+            if (report != null) {
+                throw new Failure("Req: " + report);
+            }
+        }
+        return trigger.get(definition.getName(), value);
+    }
+
+    /**
+     * Validate {@code values}, by parameter name, in parallel, unless there is only one. The name is
+     * the key rather than the definition, whose hash code could go through its whole XML form.
+     */
+    static TriggerValidation validate(Map<String, Candidate> values, ValidationEntryPoint entryPoint, String job) {
+        TriggerValidation trigger = new TriggerValidation();
+        if (values.size() < 2) {
+            return trigger;
+        }
+        Map<String, Future<ValidationResult>> tasks = new LinkedHashMap<>();
+        try {
+            for (Map.Entry<String, Candidate> value : values.entrySet()) {
+                Candidate candidate = value.getValue();
+                tasks.put(value.getKey(), POOL.submit(() -> candidate.definition().validate(candidate.value(), entryPoint, job)));
+            }
+        } catch (RejectedExecutionException e) {
+            for (Future<ValidationResult> task : tasks.values()) {
+                task.cancel(true);
+            }
+            return trigger;
+        }
+        for (Map.Entry<String, Candidate> value : values.entrySet()) {
+            trigger.values.put(value.getKey(), value.getValue().value());
+            trigger.results.put(value.getKey(), BatchValidation.join(tasks.get(value.getKey())));
+        }
+        return trigger;
+    }
+
+    /**
+     * Why the values of the trigger were turned down, one parameter after the other, {@code null} if none was.
+     */
+    String describeFailures(Map<String, Candidate> values, ValidationEntryPoint entryPoint) {
+        List<String> failures = new ArrayList<>();
+        for (Map.Entry<String, Candidate> value : values.entrySet()) {
+            ValidationResult vres = results.get(value.getKey());
+            Candidate candidate = value.getValue();
+            String failure = vres == null ? null : candidate.definition().describeFailure(candidate.value(), vres, entryPoint);
+            if (failure != null) {
+                failures.add(failure);
+            }
+        }
+        if (failures.isEmpty()) {
+            return null;
+        }
+        if (failures.size() == 1) {
+            return failures.get(0);
+        }
+        return failures.size() + " parameters were turned down: " + String.join("; ", failures);
+    }
+
+    /**
+     * Result of the parameter named {@code name}, {@code null} unless it was validated with {@code value}.
+     */
+    ValidationResult get(String name, String value) {
+        ValidationResult vres = results.get(name);
+        return vres != null && value != null && value.equals(values.get(name)) ? vres : null;
+    }
+
+    /**
+     * Values of the build form, but for the uploaded files, which are validated as they are read.
+     */
+    private static Map<String, Candidate> submittedValues(StaplerRequest2 req, ParametersDefinitionProperty property) {
+        Map<String, Candidate> values = new LinkedHashMap<>();
+        JSONObject form;
+        try {
+            form = req.getSubmittedForm();
+        } catch (ServletException e) {
+            return values;
+        }
+        Object parameters = form == null ? null : form.get("parameter");
+        List<?> entries = parameters instanceof JSONArray array ? array
+                : parameters instanceof JSONObject single ? List.of(single)
+                : List.of();
+        for (Object entry : entries) {
+            if (entry instanceof JSONObject jo && jo.get("name") instanceof String name && jo.get("value") instanceof String value
+                    && property.getParameterDefinition(name) instanceof ValidatingYamlParameterDefinition definition
+                    && ValidatingYamlParameterDefinition.uploadOf(req, jo) == null) {
+                values.put(name, new Candidate(definition, value));
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Values given as request parameters.
+     */
+    private static Map<String, Candidate> requestValues(StaplerRequest2 req, ParametersDefinitionProperty property) {
+        Map<String, Candidate> values = new LinkedHashMap<>();
+        for (ParameterDefinition parameter : property.getParameterDefinitions()) {
+            if (parameter instanceof ValidatingYamlParameterDefinition definition) {
+                String[] value = req.getParameterValues(definition.getName());
+                if (value != null && value.length > 0) {
+                    values.put(definition.getName(), new Candidate(definition, value[0]));
+                }
+            }
+        }
+        return values;
+    }
+}
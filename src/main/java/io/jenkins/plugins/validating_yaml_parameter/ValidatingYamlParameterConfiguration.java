@@ -0,0 +1,86 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 csanchez.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.jenkins.plugins.validating_yaml_parameter;
+
+import hudson.Extension;
+import hudson.ExtensionList;
+import java.util.ArrayList;
+import java.util.List;
+import jenkins.model.GlobalConfiguration;
+import jenkins.model.Jenkins;
+import org.jenkinsci.Symbol;
+import org.kohsuke.stapler.DataBoundSetter;
+
+/**
+ * Global settings of the plugin, shared by every validating YAML parameter.
+ *
+ * @author csanchez
+ */
+@Extension @Symbol("validatingYamlParameter")
+public class ValidatingYamlParameterConfiguration extends GlobalConfiguration {
+
+    private ValidationLimits limits;
+    private List<NamedSchema> schemas;
+
+    public ValidatingYamlParameterConfiguration() {
+        load();
+        SchemaRegistry.get().update(schemas);
+        ValidationLimits.globalLimitsChanged();
+    }
+
+    /**
+     * The global configuration, or {@code null} when Jenkins is not running.
+     */
+    public static ValidatingYamlParameterConfiguration get() {
+        if (Jenkins.getInstanceOrNull() == null) {
+            return null;
+        }
+        return ExtensionList.lookupSingleton(ValidatingYamlParameterConfiguration.class);
+    }
+
+    public ValidationLimits getLimits() {
+        return limits;
+    }
+
+    @DataBoundSetter
+    public void setLimits(ValidationLimits limits) {
+        this.limits = limits;
+        ValidationLimits.globalLimitsChanged();
+        save();
+    }
+
+    /**
+     * Schemas that parameter definitions can refer to by id.
+     */
+    public List<NamedSchema> getSchemas() {
+        return schemas == null ? List.of() : schemas;
+    }
+
+    @DataBoundSetter
+    public void setSchemas(List<NamedSchema> schemas) {
+        this.schemas = schemas == null ? null : new ArrayList<>(schemas);
+        SchemaRegistry.get().update(this.schemas);
+        save();
+    }
+}
@@ -25,26 +25,40 @@ package io.jenkins.plugins.validating_yaml_parameter;
 
 import hudson.AbortException;
 import hudson.Extension;
+import hudson.cli.BuildCommand;
 import hudson.cli.CLICommand;
 import hudson.model.Failure;
 import hudson.model.Item;
+import hudson.model.Job;
 import hudson.model.ParameterDefinition;
 import hudson.model.ParameterValue;
+import hudson.model.ParametersDefinitionProperty;
 import hudson.security.Permission;
 import hudson.util.FormValidation;
+import hudson.util.ListBoxModel;
 import net.sf.json.JSONObject;
+import org.apache.commons.fileupload2.core.FileItem;
 import org.jenkinsci.Symbol;
 import org.kohsuke.stapler.AncestorInPath;
 import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+import org.kohsuke.stapler.HttpResponse;
+import org.kohsuke.stapler.HttpResponses;
 import org.kohsuke.stapler.QueryParameter;
 import org.kohsuke.stapler.verb.POST;
 import org.kohsuke.stapler.StaplerRequest2;
-import org.yaml.snakeyaml.Yaml;
-import org.yaml.snakeyaml.constructor.SafeConstructor;
-import org.yaml.snakeyaml.LoaderOptions;
+import org.kohsuke.stapler.StaplerResponse2;
+import org.yaml.snakeyaml.reader.UnicodeReader;
 
+import jakarta.servlet.ServletException;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.Serial;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
 import java.util.logging.Logger;
 
 /**
@@ -57,9 +71,28 @@ public class ValidatingYamlParameterDefinition extends ParameterDefinition {
     @Serial
     private static final long serialVersionUID = 900032072543915L;
 
+    /**
+     * Value given on the CLI to read the value from standard input. It is not valid YAML, unlike
+     * {@code -}, so no value that could be given before is taken for it.
+     */
+    static final String STDIN = "@-";
+
     private static final Logger LOGGER = Logger.getLogger(ValidatingYamlParameterDefinition.class.getName());
     private String defaultValue;
     private String failedValidationMessage;
+    private ValidationMode validationMode;
+    private ValidationLimits limits;
+    private String schema;
+    private String schemaId;
+    private String exportPaths;
+    private boolean multiDocument;
+    /**
+     * Digest of the default value, and its fingerprint once it has been validated, see {@link ValidationFingerprint}.
+     * Set by whichever thread first validates the default value; the digest is always set before the fingerprint.
+     */
+    private volatile String defaultValueDigest;
+    private volatile String defaultValueFingerprint;
+    private transient ValidationResult defaultValueResult;
     private static boolean result;
 
     private String value;
@@ -94,27 +127,344 @@ public class ValidatingYamlParameterDefinition extends ParameterDefinition {
         return failedValidationMessage;
     }
 
+    public ValidationMode getValidationMode() {
+        return validationMode == null ? ValidationMode.CONSTRUCT : validationMode;
+    }
+
+    @DataBoundSetter
+    public void setValidationMode(ValidationMode validationMode) {
+        this.validationMode = validationMode;
+    }
+
+    /**
+     * Limits set on this parameter, or {@code null} to use the global ones.
+     */
+    public ValidationLimits getLimits() {
+        return limits;
+    }
+
+    @DataBoundSetter
+    public void setLimits(ValidationLimits limits) {
+        this.limits = limits;
+    }
+
+    public ValidationLimits getEffectiveLimits() {
+        return ValidationLimits.effective(limits);
+    }
+
+    /**
+     * JSON Schema, in JSON or YAML, that values must match, or {@code null} for none.
+     */
+    public String getSchema() {
+        return schema;
+    }
+
+    @DataBoundSetter
+    public void setSchema(String schema) {
+        this.schema = schema == null || schema.isBlank() ? null : schema;
+    }
+
+    /**
+     * Id of a schema of the global configuration that values must match, or {@code null} for none.
+     */
+    public String getSchemaId() {
+        return schemaId;
+    }
+
+    @DataBoundSetter
+    public void setSchemaId(String schemaId) {
+        this.schemaId = schemaId == null || schemaId.isBlank() ? null : schemaId;
+    }
+
+    /**
+     * Paths of the value to export as environment variables, one per line, see {@link PathExtractor}.
+     */
+    public String getExportPaths() {
+        return exportPaths;
+    }
+
+    @DataBoundSetter
+    public void setExportPaths(String exportPaths) {
+        this.exportPaths = exportPaths == null || exportPaths.isBlank() ? null : exportPaths;
+    }
+
+    /**
+     * Whether values may be streams of several {@code ---} separated documents, each validated on its own.
+     */
+    public boolean isMultiDocument() {
+        return multiDocument;
+    }
+
+    @DataBoundSetter
+    public void setMultiDocument(boolean multiDocument) {
+        this.multiDocument = multiDocument;
+    }
+
+    /**
+     * The compiled schema of this parameter, {@code null} if there is none. An inline
+     * {@link #getSchema() schema} takes precedence over a {@link #getSchemaId() shared} one.
+     *
+     * @throws IllegalArgumentException if the schema is invalid or the shared schema does not exist
+     */
+    JsonSchema getCompiledSchema() {
+        if (schema != null) {
+            return JsonSchema.compile(schema);
+        }
+        if (schemaId != null) {
+            JsonSchema shared = SchemaRegistry.get().lookup(schemaId);
+            if (shared == null) {
+                throw new IllegalArgumentException("no schema with id '" + schemaId + "' is configured");
+            }
+            return shared;
+        }
+        return null;
+    }
+
     @Override
     public ValidatingYamlParameterValue getDefaultParameterValue() {
-        ValidatingYamlParameterValue v = new ValidatingYamlParameterValue(getName(), defaultValue);
+        ValidatingYamlParameterValue v = configure(new ValidatingYamlParameterValue(getName(), defaultValue));
+        ValidationResult vres = validateDefaultValue();
+        v.setValidation(vres);
+        if (vres.getResult()) {
+            v.markValidated(defaultValueDigest);
+        }
         return v;
     }
 
-    private static ValidationResult doCheckYaml(String value) {
+    /**
+     * Fingerprint of the default value under the current settings, {@code null} if the schema cannot be used.
+     */
+    private String currentDefaultValueFingerprint() {
+        JsonSchema compiled;
+        try {
+            compiled = getCompiledSchema();
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        return ValidationFingerprint.of(defaultValueDigest, ValidationFingerprint.settings(getValidationMode(), multiDocument, getEffectiveLimits(), compiled));
+    }
+
+    /**
+     * Whether the default value passed validation under the current settings, answered from its
+     * fingerprint without looking at the text.
+     */
+    boolean isDefaultValueValidated() {
+        return defaultValueFingerprint != null
+                && ValidationFingerprint.matches(defaultValueFingerprint, currentDefaultValueFingerprint());
+    }
+
+    /**
+     * Validate the default value, unless its fingerprint shows it already passed under the
+     * current settings. A default value that passes is fingerprinted, which is saved along with
+     * the job.
+     */
+    ValidationResult validateDefaultValue() {
+        if (isDefaultValueValidated()) {
+            return defaultValueValidated();
+        }
+        ValidationResult vres = validate(defaultValue);
+        if (vres.getResult()) {
+            defaultValueResult = vres;
+            if (defaultValueDigest == null) {
+                defaultValueDigest = ValidationFingerprint.digest(defaultValue);
+            }
+            defaultValueFingerprint = currentDefaultValueFingerprint();
+        }
+        return vres;
+    }
+
+    /**
+     * Drop the fingerprint of a default value that was edited in the saved configuration: the
+     * fingerprint only vouches for the text whose digest was recorded with it.
+     */
+    protected Object readResolve() {
+        if (defaultValueFingerprint != null && !Objects.equals(defaultValueDigest, ValidationFingerprint.digest(defaultValue))) {
+            defaultValueDigest = null;
+            defaultValueFingerprint = null;
+        }
+        return this;
+    }
+
+    /**
+     * Result for the default value when its fingerprint matched: the last validation of it if this
+     * definition did one, flagged as reused.
+     */
+    private ValidationResult defaultValueValidated() {
+        ValidationResult last = defaultValueResult;
+        return last != null ? last.reused() : valid();
+    }
+
+    private static ValidationResult valid() {
         ValidationResult vres = new ValidationResult();
-        LoaderOptions options = new LoaderOptions();
-        SafeConstructor constructor = new SafeConstructor(options);
-        Yaml yaml = new Yaml(constructor);
+        vres.setResult(true);
+        return vres;
+    }
+
+    /**
+     * Apply this definition's validation settings to a value it created.
+     */
+    private ValidatingYamlParameterValue configure(ValidatingYamlParameterValue v) {
+        v.setValidationMode(getValidationMode());
+        v.setLimits(limits);
+        v.setSchema(compiledSchemaOrNull());
+        v.setExportPaths(exportPaths);
+        v.setMultiDocument(multiDocument);
+        return v;
+    }
+
+    /**
+     * Fingerprint a value that passed validation, so that later checks of it are constant-time,
+     * and keep how it was validated for the {@link ValidationReport}.
+     */
+    private ValidatingYamlParameterValue accepted(ValidatingYamlParameterValue v, ValidationResult vres) {
+        v.setValidation(vres);
+        String digest = v.getStoredDigest();
+        if (digest == null) {
+            String text = v.getValue();
+            digest = defaultValueDigest;
+            if (digest == null || text == null || !text.equals(defaultValue)) {
+                digest = ValidationFingerprint.digest(text);
+            }
+        }
+        v.markValidated(digest);
+        return v;
+    }
+
+    private JsonSchema compiledSchemaOrNull() {
         try {
-            yaml.load(value);
-            vres.setResult(true);
-        } catch (Exception e) {
-            vres.setResult(false);
-            vres.setError(e.toString());
+            return getCompiledSchema();
+        } catch (IllegalArgumentException e) {
+            return null;
         }
+    }
+
+    ValidationResult validate(String value) {
+        return validate(value, false);
+    }
+
+    /**
+     * @param byDocument whether to validate a multi-document value one document at a time, so that the
+     *                   documents left alone since the last check are not parsed again, as while it is edited
+     */
+    private ValidationResult validate(String value, boolean byDocument) {
+        // the fingerprint is checked before the text, so that other values never pay for comparing it
+        if (value != null && defaultValue != null && value.length() == defaultValue.length()
+                && isDefaultValueValidated() && value.equals(defaultValue)) {
+            return defaultValueValidated();
+        }
+        JsonSchema compiled;
+        try {
+            compiled = getCompiledSchema();
+        } catch (IllegalArgumentException e) {
+            return unusableSchema(e);
+        }
+        if (byDocument && multiDocument) {
+            return YamlValidator.get().validateDocuments(value, getValidationMode(), getEffectiveLimits(), compiled);
+        }
+        return YamlValidator.get().validateReportingHits(value, getValidationMode(), multiDocument, getEffectiveLimits(), compiled);
+    }
+
+    private static ValidationResult unusableSchema(IllegalArgumentException e) {
+        ValidationResult vres = new ValidationResult();
+        vres.setResult(false);
+        vres.setOutcome(ValidationResult.Outcome.SCHEMA_VIOLATION);
+        vres.setError("the schema of this parameter cannot be used: " + e.getMessage());
         return vres;
     }
 
+    /**
+     * Validate the value read by {@code spool} as it streams in, on behalf of {@code entryPoint}.
+     */
+    ValidationResult validate(ValueSpool spool, ValidationEntryPoint entryPoint, String job) {
+        return ValidationMetrics.get().measure(entryPoint, job, getName(), spool::getLength, () -> {
+            try {
+                return YamlValidator.get().validate(spool, getValidationMode(), multiDocument, getEffectiveLimits(), getCompiledSchema());
+            } catch (IllegalArgumentException e) {
+                return unusableSchema(e);
+            }
+        });
+    }
+
+    /**
+     * Validate a value as it is read from {@code in}, spooling it to the store of {@code job} instead of
+     * reading it into memory.
+     *
+     * @param job the job the value is submitted to, {@code null} if unknown, in which case it is turned down
+     * @param reject turns the reason a value was turned down into the exception to throw
+     */
+    <E extends Exception> ValidatingYamlParameterValue createValue(InputStream in, ValidationEntryPoint entryPoint, Job<?, ?> job,
+            Function<String, E> reject) throws IOException, E {
+        if (job == null) {
+            throw reject.apply("Value for parameter [" + getName() + "] can only be streamed in for the build of a job");
+        }
+        try (ValueSpool spool = new ValueSpool(new UnicodeReader(in), getEffectiveLimits(), ValueStorage.directory(job))) {
+            ValidationResult vres = validate(spool, entryPoint, job.getFullName());
+            String rejection = describeRejection(vres);
+            if (rejection != null) {
+                throw reject.apply("Value for parameter [" + getName() + "] " + rejection);
+            }
+            if (!vres.getResult()) {
+                throw reject.apply("Invalid value for parameter [" + getName() + "] specified: " + vres.getError());
+            }
+            return accepted(configure(spool.finish(getName(), failedValidationMessage)), vres);
+        }
+    }
+
+    /**
+     * Validate {@code value} on behalf of {@code entryPoint}, recording it in the {@link ValidationMetrics}.
+     * Values checked from the build form are validated one document at a time.
+     *
+     * @param job full name of the job, {@code null} if unknown
+     */
+    ValidationResult validate(String value, ValidationEntryPoint entryPoint, String job) {
+        return ValidationMetrics.get().measure(entryPoint, job, getName(), length(value),
+                () -> validate(value, entryPoint == ValidationEntryPoint.FORM));
+    }
+
+    private static long length(String value) {
+        return value == null ? 0 : value.length();
+    }
+
+    private static String jobOf(StaplerRequest2 req) {
+        Job<?, ?> job = ownerOf(req);
+        return job == null ? null : job.getFullName();
+    }
+
+    private static Job<?, ?> ownerOf(StaplerRequest2 req) {
+        return req == null ? null : req.findAncestorObject(Job.class);
+    }
+
+    /**
+     * Why a value was turned down for a reason other than its syntax, {@code null} if it was
+     * valid or only its syntax was wrong.
+     */
+    static String describeRejection(ValidationResult vres) {
+        switch (vres.getOutcome()) {
+            case SCHEMA_VIOLATION:
+                return "does not match its schema: " + vres.getError();
+            case LIMIT_EXCEEDED:
+            case TIMEOUT:
+                return "rejected: " + vres.getError();
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Why {@code value} was turned down on behalf of {@code entryPoint}, {@code null} if it was accepted.
+     */
+    String describeFailure(String value, ValidationResult vres, ValidationEntryPoint entryPoint) {
+        String rejection = describeRejection(vres);
+        if (rejection != null) {
+            return "Value for parameter [" + getName() + "] " + rejection;
+        }
+        if (!vres.getResult()) {
+            String what = entryPoint == ValidationEntryPoint.SUBMISSION ? "Invalid YAML syntax" : "Invalid value";
+            return what + " for parameter [" + getName() + "] specified: " + value;
+        }
+        return null;
+    }
+
     @Extension @Symbol("validatingYamlParameter")
     public static class DescriptorImpl extends ParameterDescriptor {
 
@@ -123,6 +473,18 @@ public class ValidatingYamlParameterDefinition extends ParameterDefinition {
             return "Validating Yaml Parameter";
         }
 
+        /**
+         *  Fingerprint the default value when the configuration is saved
+         */
+        @Override
+        public ParameterDefinition newInstance(StaplerRequest2 req, JSONObject formData) throws FormException {
+            ParameterDefinition definition = super.newInstance(req, formData);
+            if (definition instanceof ValidatingYamlParameterDefinition yaml) {
+                yaml.validateDefaultValue();
+            }
+            return definition;
+        }
+
         /**
          *  Check yaml syntax
          */
@@ -130,6 +492,7 @@ public class ValidatingYamlParameterDefinition extends ParameterDefinition {
         public FormValidation doValidate(
                 @QueryParameter("value") final String value,
                 @QueryParameter("failedValidationMessage") final String failedValidationMessage,
+                @QueryParameter("name") final String name,
                 @AncestorInPath Item item
                 ) {
 
@@ -138,29 +501,173 @@ public class ValidatingYamlParameterDefinition extends ParameterDefinition {
             }
             item.checkPermission(Permission.CONFIGURE);
 
-            ValidationResult vres = doCheckYaml(value);
+            ValidatingYamlParameterDefinition definition = findDefinition(item, name);
+            ValidationResult vres = definition != null
+                    ? definition.validate(value, ValidationEntryPoint.FORM, item.getFullName())
+                    : ValidationMetrics.get().measure(ValidationEntryPoint.FORM, item.getFullName(), name, length(value),
+                            () -> YamlValidator.get().validate(value, ValidationMode.CONSTRUCT, ValidationLimits.effective(null)));
             if(vres.getResult()) {
                 return FormValidation.ok();
             }
+            else if (vres.isRejected()) {
+                return FormValidation.error("Yaml value rejected: " + vres.getError());
+            }
+            else if (vres.getOutcome() == ValidationResult.Outcome.SCHEMA_VIOLATION) {
+                return FormValidation.error("Yaml value does not match the schema: " + vres.getError());
+            }
             else {
                 return failedValidationMessage == null || failedValidationMessage.isEmpty()
                         ? FormValidation.error("Invalid yaml string: " + vres.getError())
                         : FormValidation.error(failedValidationMessage);
             }
         }
+
+        /**
+         *  Check many candidate values of the named parameter at once. The body is a JSON array of
+         *  the values, the response a JSON array of their results, in the same order, see {@link BatchValidation}.
+         */
+        @POST
+        public HttpResponse doValidateBatch(
+                @QueryParameter("name") final String name,
+                @AncestorInPath Item item,
+                StaplerRequest2 req
+                ) throws IOException {
+            if (item == null) {
+                return HttpResponses.errorWithoutStack(404, "Batch validation is only available on a job");
+            }
+            item.checkPermission(Item.BUILD);
+
+            ValidatingYamlParameterDefinition definition = findDefinition(item, name);
+            if (definition == null) {
+                return HttpResponses.errorWithoutStack(404, "No validating YAML parameter named " + name);
+            }
+            List<String> values;
+            try {
+                values = BatchValidation.readValues(req.getReader());
+            } catch (IllegalArgumentException e) {
+                return HttpResponses.errorWithoutStack(400, e.getMessage());
+            }
+
+            List<Future<ValidationResult>> tasks;
+            try {
+                tasks = BatchValidation.submit(definition, values, item.getFullName());
+            } catch (RejectedExecutionException e) {
+                return HttpResponses.errorWithoutStack(503, "Too many values are being validated, try again later");
+            }
+            return new HttpResponse() {
+                @Override
+                public void generateResponse(StaplerRequest2 req, StaplerResponse2 rsp, Object node) throws IOException {
+                    rsp.setContentType("application/json;charset=UTF-8");
+                    BatchValidation.write(tasks, rsp.getWriter());
+                }
+            };
+        }
+
+        /**
+         *  Check that the schema compiles
+         */
+        @POST
+        public FormValidation doCheckSchema(@QueryParameter final String value, @AncestorInPath Item item) {
+            if (item == null || value == null || value.isBlank()) {
+                return FormValidation.ok();
+            }
+            item.checkPermission(Item.CONFIGURE);
+            try {
+                JsonSchema.compile(value);
+                return FormValidation.ok();
+            } catch (IllegalArgumentException e) {
+                return FormValidation.error("Invalid schema: " + e.getMessage());
+            }
+        }
+
+        /**
+         *  Check the paths to export
+         */
+        @POST
+        public FormValidation doCheckExportPaths(@QueryParameter final String value, @AncestorInPath Item item) {
+            if (item == null) {
+                return FormValidation.ok();
+            }
+            item.checkPermission(Item.CONFIGURE);
+            try {
+                PathExtractor.compile("NAME", value);
+                return FormValidation.ok();
+            } catch (IllegalArgumentException e) {
+                return FormValidation.error(e.getMessage());
+            }
+        }
+
+        /**
+         *  List the shared schemas
+         */
+        @POST
+        public ListBoxModel doFillSchemaIdItems(@AncestorInPath Item item) {
+            ListBoxModel items = new ListBoxModel();
+            items.add("- none -", "");
+            if (item == null || !item.hasPermission(Item.CONFIGURE)) {
+                return items;
+            }
+            for (String id : SchemaRegistry.get().getIds()) {
+                items.add(id, id);
+            }
+            return items;
+        }
+
+        /**
+         *  Look up the definition of the named parameter on the job the form belongs to
+         */
+        static ValidatingYamlParameterDefinition findDefinition(Item item, String name) {
+            if (name == null || !(item instanceof Job<?, ?> job)) {
+                return null;
+            }
+            ParametersDefinitionProperty property = job.getProperty(ParametersDefinitionProperty.class);
+            if (property != null && property.getParameterDefinition(name) instanceof ValidatingYamlParameterDefinition definition) {
+                return definition;
+            }
+            return null;
+        }
     }
 
     @Override
     public ParameterValue createValue(StaplerRequest2 req, JSONObject jo) {
+        FileItem<?> upload = uploadOf(req, jo);
+        if (upload != null) {
+            try (InputStream in = upload.getInputStream()) {
+                return createValue(in, ValidationEntryPoint.SUBMISSION, ownerOf(req), message -> new Failure("Req: " + message));
+            } catch (IOException e) {
+                throw new Failure("Req: Could not read the file uploaded for parameter [" + getName() + "]: " + e.getMessage());
+            }
+        }
         ValidatingYamlParameterValue value = req.bindJSON(ValidatingYamlParameterValue.class, jo);
         String req_value = value.getValue();
-        ValidationResult vres = doCheckYaml(req_value);
+        configure(value);
+        ValidationResult vres = TriggerValidation.resultFor(req, this, req_value, ValidationEntryPoint.SUBMISSION);
+        if (vres == null) {
+            vres = validate(req_value, ValidationEntryPoint.SUBMISSION, jobOf(req));
+        }
 
-        if (!vres.getResult()) {
-            throw new Failure("Req: Invalid YAML syntax for parameter [" + getName() + "] specified: " + req_value);
+        String failure = describeFailure(req_value, vres, ValidationEntryPoint.SUBMISSION);
+        if (failure != null) {
+            throw new Failure("Req: " + failure);
         }
 
-        return value;
+        return accepted(value, vres);
+    }
+
+    /**
+     * File uploaded for this parameter, which takes precedence over the text, {@code null} if there is none.
+     */
+    static FileItem<?> uploadOf(StaplerRequest2 req, JSONObject jo) {
+        Object field = jo.get("file");
+        if (!(field instanceof String name) || name.isEmpty()) {
+            return null;
+        }
+        try {
+            FileItem<?> upload = req.getFileItem2(name);
+            return upload != null && upload.getSize() > 0 ? upload : null;
+        } catch (ServletException | IOException e) {
+            throw new Failure("Req: Could not read the uploaded file: " + e.getMessage());
+        }
     }
 
     @Override
@@ -170,11 +677,15 @@ public class ValidatingYamlParameterDefinition extends ParameterDefinition {
         if (value == null || value.length < 1) {
             return getDefaultParameterValue();
         } else {
-            ValidationResult vres = doCheckYaml(value[0]);
-            if (!vres.getResult()) {
-                throw new Failure("Req: Invalid value for parameter [" + getName() + "] specified: " + value[0]);
+            ValidationResult vres = TriggerValidation.resultFor(req, this, value[0], ValidationEntryPoint.REQUEST);
+            if (vres == null) {
+                vres = validate(value[0], ValidationEntryPoint.REQUEST, jobOf(req));
             }
-            return new ValidatingYamlParameterValue(getName(), value[0]);
+            String failure = describeFailure(value[0], vres, ValidationEntryPoint.REQUEST);
+            if (failure != null) {
+                throw new Failure("Req: " + failure);
+            }
+            return accepted(configure(new ValidatingYamlParameterValue(getName(), value[0])), vres);
         }
     }
 
@@ -182,19 +693,30 @@ public class ValidatingYamlParameterDefinition extends ParameterDefinition {
     public ParameterValue createValue(CLICommand command, String value) throws IOException, InterruptedException {
         if (value == null || value.isEmpty()) {
             return getDefaultParameterValue();
+        } else if (STDIN.equals(value)) {
+            Job<?, ?> job = command instanceof BuildCommand build ? build.job : null;
+            return createValue(command.stdin, ValidationEntryPoint.CLI, job, AbortException::new);
         } else {
-            ValidationResult vres = doCheckYaml(value);
-            if (!vres.getResult()) {
-                throw new AbortException("Invalid value for parameter [" + getName() + "] specified: " + value);
+            ValidationResult vres = validate(value, ValidationEntryPoint.CLI, null);
+            String failure = describeFailure(value, vres, ValidationEntryPoint.CLI);
+            if (failure != null) {
+                throw new AbortException(failure);
             }
-            return new ValidatingYamlParameterValue(getName(), value, failedValidationMessage);
+            return accepted(configure(new ValidatingYamlParameterValue(getName(), value, failedValidationMessage)), vres);
         }
     }
 
     @Override
     public ParameterDefinition copyWithDefaultValue(ParameterValue defaultValue) {
         if (defaultValue instanceof ValidatingYamlParameterValue value) {
-	        return new ValidatingYamlParameterDefinition(getName(), value.value, getFailedValidationMessage(), getDescription());
+	        ValidatingYamlParameterDefinition copy = new ValidatingYamlParameterDefinition(getName(), value.getValue(), getFailedValidationMessage(), getDescription());
+	        copy.setValidationMode(validationMode);
+	        copy.setLimits(limits);
+	        copy.setSchema(schema);
+	        copy.setSchemaId(schemaId);
+	        copy.setExportPaths(exportPaths);
+	        copy.setMultiDocument(multiDocument);
+	        return copy;
         } else {
             return this;
         }
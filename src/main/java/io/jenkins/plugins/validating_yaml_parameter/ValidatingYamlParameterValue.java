@@ -24,25 +24,65 @@
 package io.jenkins.plugins.validating_yaml_parameter;
 
 import hudson.AbortException;
+import hudson.EnvVars;
 import hudson.Launcher;
 import hudson.model.AbstractBuild;
 import hudson.model.BuildListener;
+import hudson.model.Run;
 import hudson.model.StringParameterValue;
 import hudson.tasks.BuildWrapper;
+import hudson.util.VariableResolver;
+import java.io.File;
 import java.io.IOException;
+import java.lang.ref.SoftReference;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.jenkinsci.plugins.scriptsecurity.sandbox.whitelists.Whitelisted;
 import org.kohsuke.stapler.DataBoundConstructor;
 import org.kohsuke.stapler.DataBoundSetter;
-import org.yaml.snakeyaml.Yaml;
-import org.yaml.snakeyaml.constructor.SafeConstructor;
-import org.yaml.snakeyaml.LoaderOptions;
+import org.kohsuke.stapler.export.Exported;
 
 /**
+ * Value of a {@link ValidatingYamlParameterDefinition}.
+ *
+ * <p>Large values can be moved out of the build record by {@link ValueStorage}: the text is then
+ * kept once per job in a {@link BlobStore}, the record only holds its digest and length, and
+ * {@link #getValue()} reads the text back on demand, keeping it softly reachable. Values streamed
+ * in from the CLI or an uploaded file start out in that store under a reference of their own,
+ * see {@link ValueSpool}, which their build takes over when it starts.
  *
  * @author csanchez
  */
 public class ValidatingYamlParameterValue extends StringParameterValue {
 
+    private static final Logger LOGGER = Logger.getLogger(ValidatingYamlParameterValue.class.getName());
+
     private String failedValidationMessage;
+    private ValidationMode validationMode;
+    private ValidationLimits limits;
+    private transient JsonSchema schema;
+    private String schemaDigest;
+    private String exportPaths;
+    private boolean multiDocument;
+    private transient volatile YamlTree tree;
+    private transient volatile Map<String, String> exported;
+
+    /** Digest of the text when it is stored outside of the build record, {@code null} while it is inline. */
+    private String storedDigest;
+    private long storedLength;
+    private transient File storageDirectory;
+    private transient volatile SoftReference<String> storedText;
+    /** Reference held in the store of the job while the value waits in the queue, see {@link ValueSpool}. */
+    private String spoolReference;
+
+    /** Digest of the text and its {@link ValidationFingerprint} once it has passed validation. */
+    private String validatedDigest;
+    private String validatedFingerprint;
+    /** Saved with the value, so that the {@link ValidationReport} of a build queued across a restart has it. */
+    private volatile ValidationResult validation;
 
     @DataBoundConstructor
     public ValidatingYamlParameterValue(String name, String value) {
@@ -67,25 +107,317 @@ public class ValidatingYamlParameterValue extends StringParameterValue {
         this.failedValidationMessage = failedValidationMessage;
     }
 
-    private boolean doCheckYaml(String value) {
-        LoaderOptions options = new LoaderOptions();
-        SafeConstructor constructor = new SafeConstructor(options);
-        Yaml yaml = new Yaml(constructor);
-        try {
-            yaml.load(value);
+    public ValidationMode getValidationMode() {
+        return validationMode == null ? ValidationMode.CONSTRUCT : validationMode;
+    }
+
+    @DataBoundSetter
+    public void setValidationMode(ValidationMode validationMode) {
+        this.validationMode = validationMode;
+    }
+
+    public ValidationLimits getLimits() {
+        return limits;
+    }
+
+    /**
+     * Limits of the definition that created this value, {@code null} to use the global ones.
+     */
+    public void setLimits(ValidationLimits limits) {
+        this.limits = limits;
+    }
+
+    /**
+     * Schema of the definition that created this value. Not persisted: the value was already
+     * checked against it when it was created.
+     */
+    void setSchema(JsonSchema schema) {
+        this.schema = schema;
+        this.schemaDigest = schema == null ? null : schema.getDigest();
+    }
+
+    private String fingerprint(String digest) {
+        return ValidationFingerprint.of(digest, ValidationFingerprint.settings(getValidationMode(), multiDocument, ValidationLimits.effective(limits), schemaDigest));
+    }
+
+    /**
+     * Record that the text, with the given digest, passed validation under the current settings of this value.
+     */
+    void markValidated(String digest) {
+        this.validatedDigest = digest;
+        this.validatedFingerprint = fingerprint(digest);
+    }
+
+    /**
+     * The last validation of this value, {@code null} if there was none since it was created.
+     */
+    public ValidationResult getValidation() {
+        return validation;
+    }
+
+    void setValidation(ValidationResult validation) {
+        this.validation = validation;
+    }
+
+    /**
+     * Drop the fingerprint of a text that was edited in the build record: the fingerprint only
+     * vouches for the text whose digest was recorded with it. A stored text is filed under its
+     * digest, so comparing the digests is enough; an inline one is digested again.
+     */
+    protected Object readResolve() {
+        if (validatedFingerprint != null) {
+            String digest = storedDigest != null ? storedDigest : ValidationFingerprint.digest(value);
+            if (!Objects.equals(validatedDigest, digest)) {
+                validatedDigest = null;
+                validatedFingerprint = null;
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Whether the text passed validation under the current settings, answered from its fingerprint
+     * without looking at the text, so that rebuilds and replays of the value do not parse it again.
+     */
+    public boolean isValidated() {
+        return validatedFingerprint != null && ValidationFingerprint.matches(validatedFingerprint, fingerprint(validatedDigest));
+    }
+
+    /**
+     * The value as read-only maps, lists and scalars, or a list of its documents if the definition
+     * allows several. It is parsed on first use into a compact {@link YamlTree} that is kept for as
+     * long as this value is in memory, so a build that reads its YAML parameter many times pays for
+     * a single parse.
+     *
+     * @throws org.yaml.snakeyaml.error.YAMLException if the value is not valid YAML
+     */
+    @Whitelisted
+    public Object getDocument() {
+        YamlTree t = tree;
+        if (t == null) {
+            synchronized (this) {
+                t = tree;
+                if (t == null) {
+                    t = YamlValidator.get().loadTree(getValue(), multiDocument, ValidationLimits.effective(limits));
+                    tree = t;
+                }
+            }
+        }
+        return t.getRoot();
+    }
+
+    public boolean isMultiDocument() {
+        return multiDocument;
+    }
+
+    /**
+     * Whether the definition that created this value allows several documents.
+     */
+    public void setMultiDocument(boolean multiDocument) {
+        this.multiDocument = multiDocument;
+        this.tree = null;
+        this.exported = null;
+    }
+
+    public String getExportPaths() {
+        return exportPaths;
+    }
+
+    /**
+     * Paths of the definition that created this value to export as environment variables.
+     */
+    public void setExportPaths(String exportPaths) {
+        this.exportPaths = exportPaths;
+        this.exported = null;
+    }
+
+    /**
+     * The YAML text, read back from the store of the job if it was moved there. Exported in place of
+     * the inherited {@code value} field, which is {@code null} while the text is stored, so that the
+     * REST API shows the text either way.
+     */
+    @Exported(name = "value", visibility = 4)
+    @Override
+    public String getValue() {
+        String text = value;
+        if (text != null || storedDigest == null) {
+            return text;
+        }
+        SoftReference<String> ref = storedText;
+        text = ref == null ? null : ref.get();
+        if (text == null) {
+            text = readStoredText();
+        }
+        return text;
+    }
+
+    /**
+     * Whether the text lives in the store of the job rather than in the build record.
+     */
+    public boolean isStored() {
+        return storedDigest != null;
+    }
+
+    /**
+     * Length of the text in characters, known without reading it back.
+     */
+    public long getLength() {
+        String text = value;
+        return text != null ? text.length() : storedDigest != null ? storedLength : 0;
+    }
+
+    void setStorageDirectory(File dir) {
+        this.storageDirectory = dir;
+    }
+
+    /**
+     * Move the text to the store in {@code dir} if it is at least {@code threshold} characters long,
+     * on behalf of the build identified by {@code reference}.
+     *
+     * @return whether the text is now stored in {@code dir}
+     */
+    synchronized boolean offload(File dir, int threshold, String reference) throws IOException {
+        if (spoolReference != null) {
+            // spooled to the store of the job, unless the value was handed to the build of another job
+            File spool = storageDirectory != null ? storageDirectory : dir;
+            BlobStore.copy(spool, dir, storedDigest, reference);
+            BlobStore.release(spool, storedDigest, spoolReference);
+            spoolReference = null;
+            storageDirectory = dir;
+            return true;
+        }
+        if (storedDigest != null) {
+            // the same value object was handed to another build
+            BlobStore.store(dir, storedDigest, this::getValue, reference);
+            storageDirectory = dir;
             return true;
-        } catch (Exception e) {
+        }
+        String text = value;
+        if (text == null || text.length() < threshold) {
             return false;
         }
+        String digest = BlobStore.digestOf(text);
+        BlobStore.store(dir, digest, () -> text, reference);
+        storedText = new SoftReference<>(text);
+        storedLength = text.length();
+        storageDirectory = dir;
+        storedDigest = digest;
+        value = null;
+        return true;
+    }
+
+    /**
+     * Take over a text that {@link ValueSpool} stored in {@code dir} under {@code reference}.
+     */
+    synchronized void spooled(String digest, long length, File dir, String reference) {
+        storedDigest = digest;
+        storedLength = length;
+        storageDirectory = dir;
+        spoolReference = reference;
+        value = null;
+    }
+
+    /**
+     * Drop the reference held while the value waited in the queue, whose item left it without a build.
+     */
+    synchronized void releaseSpool(File dir) throws IOException {
+        if (spoolReference != null) {
+            BlobStore.release(dir, storedDigest, spoolReference);
+            spoolReference = null;
+        }
+    }
+
+    /**
+     * The reference held while the value waits in the queue, {@code null} if it holds none.
+     */
+    String getSpoolReference() {
+        return spoolReference;
+    }
+
+    /**
+     * Drop the reference of the build identified by {@code reference} to the stored text.
+     */
+    synchronized void release(File dir, String reference) throws IOException {
+        if (storedDigest != null) {
+            BlobStore.release(dir, storedDigest, reference);
+        }
+    }
+
+    String getStoredDigest() {
+        return storedDigest;
+    }
+
+    private synchronized String readStoredText() {
+        SoftReference<String> ref = storedText;
+        String text = ref == null ? null : ref.get();
+        if (text != null) {
+            return text;
+        }
+        if (storageDirectory == null) {
+            LOGGER.log(Level.WARNING, "Parameter {0} is stored outside of its build record, but the build is unknown", getName());
+            return null;
+        }
+        try {
+            text = BlobStore.read(storageDirectory, storedDigest);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not read parameter " + getName(), e);
+            return null;
+        }
+        storedText = new SoftReference<>(text);
+        return text;
+    }
+
+    @Override
+    public String getShortDescription() {
+        return getName() + "='" + getValue() + "'";
+    }
+
+    @Override
+    public void buildEnv(Run<?, ?> build, EnvVars env) {
+        String text = getValue();
+        if (text != null) {
+            env.put(getName(), text);
+            env.put(getName().toUpperCase(Locale.ENGLISH), text);
+        }
+        env.putAll(getExportedVariables());
+    }
+
+    @Override
+    public VariableResolver<String> createVariableResolver(AbstractBuild<?, ?> build) {
+        return name -> getName().equals(name) ? getValue() : null;
+    }
+
+    /**
+     * Variables exported from the {@link #getExportPaths() paths}, read in a single pass, see {@link PathExtractor},
+     * and computed once per value.
+     */
+    public Map<String, String> getExportedVariables() {
+        Map<String, String> variables = exported;
+        if (variables == null) {
+            try {
+                variables = YamlValidator.get().extract(getValue(), multiDocument, ValidationLimits.effective(limits), PathExtractor.compile(getName(), exportPaths));
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Could not export paths of parameter " + getName(), e);
+                variables = Map.of();
+            }
+            exported = variables;
+        }
+        return variables;
     }
 
     @Override
     public BuildWrapper createBuildWrapper(AbstractBuild<?, ?> build) {
-        if (!doCheckYaml(value)) {
+        String job = build == null ? null : build.getParent().getFullName();
+        ValidationResult vres = ValidationMetrics.get().measure(ValidationEntryPoint.BUILD, job, getName(), getLength(), this::validateForBuild);
+        if (!vres.getResult()) {
             return new BuildWrapper() {
                 @Override
                 public Environment setUp(AbstractBuild build, Launcher launcher, BuildListener listener) throws IOException, InterruptedException {
-                    throw new AbortException("Invalue value for parameter [" + getName() + "] specified: " + value);
+                    String rejection = ValidatingYamlParameterDefinition.describeRejection(vres);
+                    if (rejection != null) {
+                        throw new AbortException("Value for parameter [" + getName() + "] " + rejection);
+                    }
+                    throw new AbortException("Invalue value for parameter [" + getName() + "] specified: " + getValue());
                 }
             };
         } else {
@@ -93,12 +425,26 @@ public class ValidatingYamlParameterValue extends StringParameterValue {
         }
     }
 
+    private ValidationResult validateForBuild() {
+        if (isValidated()) {
+            ValidationResult last = validation;
+            if (last != null) {
+                return last.reused();
+            }
+            ValidationResult vres = new ValidationResult();
+            vres.setResult(true);
+            return vres;
+        }
+        ValidationResult vres = YamlValidator.get().validateReportingHits(getValue(), getValidationMode(), multiDocument, ValidationLimits.effective(limits), schema);
+        validation = vres;
+        return vres;
+    }
+
     @Override
     public int hashCode() {
         final int prime = 71;
-        int result = super.hashCode();
-        result = prime * result;
-        return result;
+        // not the text: it must not change when the text is moved out of the build record
+        return prime * Objects.hashCode(getName());
     }
 
     @Override
@@ -106,22 +452,24 @@ public class ValidatingYamlParameterValue extends StringParameterValue {
         if (this == obj) {
             return true;
         }
-        if (!super.equals(obj)) {
+        if (obj == null || this.getClass() != obj.getClass()) {
             return false;
         }
-        if (this.getClass() != obj.getClass()) {
+        ValidatingYamlParameterValue other = (ValidatingYamlParameterValue) obj;
+        if (!Objects.equals(getName(), other.getName())) {
             return false;
         }
-        ValidatingYamlParameterValue other = (ValidatingYamlParameterValue) obj;
-        if (value == null) {
-            return other.value == null;
-        } else {
-            return value.equals(other.value);
+        if (storedDigest != null && other.storedDigest != null) {
+            return storedDigest.equals(other.storedDigest);
         }
+        return Objects.equals(getValue(), other.getValue());
     }
 
     @Override
     public String toString() {
+        if (value == null && storedDigest != null) {
+            return "(ValidatingYamlParameterValue) " + getName() + "=<" + storedLength + " characters stored as " + storedDigest + ">";
+        }
         return "(ValidatingYamlParameterValue) " + getName() + "='" + value + "'";
     }
 }
@@ -0,0 +1,147 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 csanchez.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.jenkins.plugins.validating_yaml_parameter;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import jenkins.util.SystemProperties;
+
+/**
+ * Bounded LRU cache of {@link ValidationResult}s keyed by a digest of the validated text.
+ *
+ * <p>The same payload is typically checked several times for one build (form check, trigger,
+ * build wrapper) and scheduled or remote triggers keep sending identical payloads, so a hit
+ * costs one hash instead of one parse. The cache is bounded both by entry count and by an
+ * estimate of the memory held by the cached results. Cached results are shared and must not
+ * be modified.
+ *
+ * @author csanchez
+ */
+public final class ValidationCache {
+
+    static final int MAX_ENTRIES = SystemProperties.getInteger(ValidationCache.class.getName() + ".maxEntries", 1024);
+    static final long MAX_WEIGHT = SystemProperties.getLong(ValidationCache.class.getName() + ".maxWeight", 4L * 1024 * 1024);
+
+    /** Rough per-entry overhead of the map node, the key and the result object. */
+    private static final int ENTRY_OVERHEAD = 256;
+
+    private static final ValidationCache INSTANCE = new ValidationCache(MAX_ENTRIES, MAX_WEIGHT);
+
+    private final int maxEntries;
+    private final long maxWeight;
+    private final LinkedHashMap<String, ValidationResult> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long weight;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    ValidationCache(int maxEntries, long maxWeight) {
+        this.maxEntries = maxEntries;
+        this.maxWeight = maxWeight;
+    }
+
+    public static ValidationCache get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Cache key for {@code text} checked under the given settings.
+     */
+    static String key(String settings, String text) {
+        return text == null ? null : ContentDigest.of(settings, text);
+    }
+
+    ValidationResult lookup(String key) {
+        if (key == null || maxEntries <= 0) {
+            return null;
+        }
+        ValidationResult result;
+        synchronized (this) {
+            result = entries.get(key);
+        }
+        if (result == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return result;
+    }
+
+    void store(String key, ValidationResult result) {
+        if (key == null || maxEntries <= 0) {
+            return;
+        }
+        long entryWeight = weigh(key, result);
+        if (entryWeight > maxWeight) {
+            return;
+        }
+        synchronized (this) {
+            ValidationResult previous = entries.put(key, result);
+            if (previous != null) {
+                weight -= weigh(key, previous);
+            }
+            weight += entryWeight;
+            Iterator<Map.Entry<String, ValidationResult>> eldest = entries.entrySet().iterator();
+            while ((entries.size() > maxEntries || weight > maxWeight) && eldest.hasNext()) {
+                Map.Entry<String, ValidationResult> e = eldest.next();
+                weight -= weigh(e.getKey(), e.getValue());
+                eldest.remove();
+                evictions.increment();
+            }
+        }
+    }
+
+    private static long weigh(String key, ValidationResult result) {
+        String error = result.getError();
+        return ENTRY_OVERHEAD + 2L * key.length() + (error == null ? 0 : 2L * error.length());
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        weight = 0;
+    }
+
+    public synchronized int getSize() {
+        return entries.size();
+    }
+
+    public synchronized long getWeight() {
+        return weight;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+}
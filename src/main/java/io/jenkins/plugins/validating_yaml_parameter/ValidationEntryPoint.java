@@ -0,0 +1,55 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 csanchez.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.jenkins.plugins.validating_yaml_parameter;
+
+/**
+ * Where a value was validated from.
+ *
+ * @author csanchez
+ */
+public enum ValidationEntryPoint {
+
+    /** The check of the parameter form, {@code doValidate}. */
+    FORM("Form check"),
+    /** A submitted build form, {@code createValue(StaplerRequest2, JSONObject)}. */
+    SUBMISSION("Form submission"),
+    /** A request with the value as a query or form parameter, {@code createValue(StaplerRequest2)}. */
+    REQUEST("Request parameter"),
+    /** The {@code build} CLI command, {@code createValue(CLICommand, String)}. */
+    CLI("CLI"),
+    /** The batch check of many candidate values, {@code doValidateBatch}. */
+    BATCH("Batch check"),
+    /** The check when a build starts, {@code createBuildWrapper}. */
+    BUILD("Build start");
+
+    private final String displayName;
+
+    ValidationEntryPoint(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+}
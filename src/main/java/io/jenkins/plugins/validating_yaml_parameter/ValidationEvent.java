@@ -0,0 +1,67 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 csanchez.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.jenkins.plugins.validating_yaml_parameter;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event for a validation of a YAML parameter value, emitted by
+ * {@link ValidationMetrics#measure}. When the event is not enabled in a recording, it is
+ * neither filled in nor committed.
+ *
+ * @author csanchez
+ */
+@Name("io.jenkins.plugins.validating_yaml_parameter.Validation")
+@Label("YAML Parameter Validation")
+@Category({"Jenkins", "Validating YAML Parameter"})
+@Description("Validation of the value of a validating YAML parameter")
+@StackTrace(false)
+class ValidationEvent extends Event {
+
+    @Label("Job")
+    String job;
+
+    @Label("Parameter")
+    String parameter;
+
+    @Label("Entry Point")
+    String entryPoint;
+
+    @Label("Length")
+    @Description("Length of the value in characters")
+    long length;
+
+    @Label("Nodes")
+    @Description("Nodes read before the validation ended; a result from the cache or a fingerprint repeats the count of the validation"
+            + " that produced it, 0 if unknown")
+    int nodes;
+
+    @Label("Outcome")
+    String outcome;
+}
@@ -0,0 +1,84 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 csanchez.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.jenkins.plugins.validating_yaml_parameter;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * Record that a text passed validation under given settings.
+ *
+ * <p>A fingerprint is the digest of the {@link #digest(String) digest of the text} together with
+ * the validation mode, whether several documents are allowed, the effective limits, the schema
+ * and {@link #VERSION}. It is computed
+ * once, when the text is accepted, and kept with it: checking it again later only means
+ * recomputing the fingerprint from the digest and the current settings, without reading, let
+ * alone parsing, the text. Any change of settings or of the validator gives another fingerprint,
+ * so the text is validated again.
+ *
+ * @author csanchez
+ */
+final class ValidationFingerprint {
+
+    /** Version of the validation rules, to be increased whenever a text accepted before could now be rejected. */
+    static final int VERSION = 1;
+
+    private ValidationFingerprint() {
+    }
+
+    /**
+     * Settings a text is validated under, as used in cache keys and fingerprints.
+     *
+     * @param schemaDigest {@link JsonSchema#getDigest() digest} of the schema, or {@code null} for none
+     */
+    static String settings(ValidationMode mode, boolean multiDocument, ValidationLimits limits, String schemaDigest) {
+        return mode.name() + (multiDocument ? "+documents" : "") + ';' + limits.key() + (schemaDigest == null ? "" : ';' + schemaDigest);
+    }
+
+    static String settings(ValidationMode mode, boolean multiDocument, ValidationLimits limits, JsonSchema schema) {
+        return settings(mode, multiDocument, limits, schema == null ? null : schema.getDigest());
+    }
+
+    /**
+     * Digest of the text itself, the same one {@link BlobStore} files it under.
+     */
+    static String digest(String text) {
+        return text == null ? null : BlobStore.digestOf(text);
+    }
+
+    /**
+     * Fingerprint of the text with {@code digest} validated under {@code settings}.
+     */
+    static String of(String digest, String settings) {
+        return digest == null ? null : ContentDigest.of("validated;" + VERSION + ';' + settings, digest);
+    }
+
+    /**
+     * Whether {@code expected} is a fingerprint and {@code actual} the same one.
+     */
+    static boolean matches(String expected, String actual) {
+        return expected != null && actual != null
+                && MessageDigest.isEqual(expected.getBytes(StandardCharsets.US_ASCII), actual.getBytes(StandardCharsets.US_ASCII));
+    }
+}
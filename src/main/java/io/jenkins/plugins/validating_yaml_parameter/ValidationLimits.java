@@ -0,0 +1,369 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 csanchez.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.jenkins.plugins.validating_yaml_parameter;
+
+import hudson.Extension;
+import hudson.model.AbstractDescribableImpl;
+import hudson.model.Descriptor;
+import java.io.Serial;
+import java.io.Serializable;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+import org.yaml.snakeyaml.LoaderOptions;
+
+/**
+ * Hard resource limits applied to a YAML value before and while it is parsed.
+ *
+ * <p>Every limit is optional: an unset limit is inherited from the global configuration and
+ * ultimately from the built-in defaults, and a limit of zero or less disables the check.
+ * Size limits are checked by a linear pre-scan before the parser is started; depth, node and
+ * alias limits are checked event by event so a violation stops the parse as soon as it happens.
+ * In a multi-document value the depth, node, alias and expansion limits apply to each document,
+ * and the document count and total node count to the whole stream.
+ * The expansion factor is checked on the composed node graph, before anything is constructed.
+ *
+ * @author csanchez
+ */
+public class ValidationLimits extends AbstractDescribableImpl<ValidationLimits> implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    public static final int DEFAULT_MAX_BYTES = 10 * 1024 * 1024;
+    public static final int DEFAULT_MAX_CODE_POINTS = 3 * 1024 * 1024;
+    public static final int DEFAULT_MAX_DEPTH = 50;
+    public static final int DEFAULT_MAX_NODES = 1_000_000;
+    public static final int DEFAULT_MAX_ALIASES = 50;
+    public static final int DEFAULT_MAX_EXPANSION_FACTOR = 100;
+    public static final int DEFAULT_MAX_DOCUMENTS = 1000;
+    public static final int DEFAULT_MAX_TOTAL_NODES = 5_000_000;
+    public static final int DEFAULT_TIMEOUT_MILLIS = 10_000;
+
+    static final ValidationLimits DEFAULTS = new ValidationLimits(
+            DEFAULT_MAX_BYTES, DEFAULT_MAX_CODE_POINTS, DEFAULT_MAX_DEPTH, DEFAULT_MAX_NODES, DEFAULT_MAX_ALIASES)
+            .withMaxExpansionFactor(DEFAULT_MAX_EXPANSION_FACTOR)
+            .withMaxDocuments(DEFAULT_MAX_DOCUMENTS)
+            .withMaxTotalNodes(DEFAULT_MAX_TOTAL_NODES)
+            .withTimeoutMillis(DEFAULT_TIMEOUT_MILLIS);
+
+    private Integer maxBytes;
+    private Integer maxCodePoints;
+    private Integer maxDepth;
+    private Integer maxNodes;
+    private Integer maxAliases;
+    private Integer maxExpansionFactor;
+    private Integer maxDocuments;
+    private Integer maxTotalNodes;
+    private Integer timeoutMillis;
+
+    private transient LoaderOptions loaderOptions;
+
+    /** These limits merged over {@link #effectiveBase}, see {@link #effective(ValidationLimits)}. */
+    private transient volatile ValidationLimits effective;
+    /** The global limits merged over the defaults that these effective limits were built from. */
+    private transient ValidationLimits effectiveBase;
+
+    /** The global limits merged over the defaults, until the global configuration changes. */
+    private static volatile ValidationLimits global;
+
+    @DataBoundConstructor
+    public ValidationLimits() {
+    }
+
+    ValidationLimits(Integer maxBytes, Integer maxCodePoints, Integer maxDepth, Integer maxNodes, Integer maxAliases) {
+        this.maxBytes = maxBytes;
+        this.maxCodePoints = maxCodePoints;
+        this.maxDepth = maxDepth;
+        this.maxNodes = maxNodes;
+        this.maxAliases = maxAliases;
+    }
+
+    public Integer getMaxBytes() {
+        return maxBytes;
+    }
+
+    @DataBoundSetter
+    public void setMaxBytes(Integer maxBytes) {
+        this.maxBytes = maxBytes;
+        changed();
+    }
+
+    public Integer getMaxCodePoints() {
+        return maxCodePoints;
+    }
+
+    @DataBoundSetter
+    public void setMaxCodePoints(Integer maxCodePoints) {
+        this.maxCodePoints = maxCodePoints;
+        changed();
+    }
+
+    public Integer getMaxDepth() {
+        return maxDepth;
+    }
+
+    @DataBoundSetter
+    public void setMaxDepth(Integer maxDepth) {
+        this.maxDepth = maxDepth;
+        changed();
+    }
+
+    public Integer getMaxNodes() {
+        return maxNodes;
+    }
+
+    @DataBoundSetter
+    public void setMaxNodes(Integer maxNodes) {
+        this.maxNodes = maxNodes;
+        changed();
+    }
+
+    public Integer getMaxAliases() {
+        return maxAliases;
+    }
+
+    @DataBoundSetter
+    public void setMaxAliases(Integer maxAliases) {
+        this.maxAliases = maxAliases;
+        changed();
+    }
+
+    public Integer getMaxExpansionFactor() {
+        return maxExpansionFactor;
+    }
+
+    @DataBoundSetter
+    public void setMaxExpansionFactor(Integer maxExpansionFactor) {
+        this.maxExpansionFactor = maxExpansionFactor;
+        changed();
+    }
+
+    private ValidationLimits withMaxExpansionFactor(Integer maxExpansionFactor) {
+        this.maxExpansionFactor = maxExpansionFactor;
+        return this;
+    }
+
+    /**
+     * Maximum number of documents in a multi-document value.
+     */
+    public Integer getMaxDocuments() {
+        return maxDocuments;
+    }
+
+    @DataBoundSetter
+    public void setMaxDocuments(Integer maxDocuments) {
+        this.maxDocuments = maxDocuments;
+        changed();
+    }
+
+    private ValidationLimits withMaxDocuments(Integer maxDocuments) {
+        this.maxDocuments = maxDocuments;
+        return this;
+    }
+
+    /**
+     * Maximum number of nodes in all the documents of a value together; {@link #getMaxNodes()} applies to each of them.
+     */
+    public Integer getMaxTotalNodes() {
+        return maxTotalNodes;
+    }
+
+    @DataBoundSetter
+    public void setMaxTotalNodes(Integer maxTotalNodes) {
+        this.maxTotalNodes = maxTotalNodes;
+        changed();
+    }
+
+    private ValidationLimits withMaxTotalNodes(Integer maxTotalNodes) {
+        this.maxTotalNodes = maxTotalNodes;
+        return this;
+    }
+
+    /**
+     * How long a validation may take before it is abandoned and reported as timed out.
+     */
+    public Integer getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    @DataBoundSetter
+    public void setTimeoutMillis(Integer timeoutMillis) {
+        this.timeoutMillis = timeoutMillis;
+        changed();
+    }
+
+    private ValidationLimits withTimeoutMillis(Integer timeoutMillis) {
+        this.timeoutMillis = timeoutMillis;
+        return this;
+    }
+
+    /**
+     * The limits to apply for a parameter: its own limits, then the global ones, then the defaults.
+     * The returned limits have every value set.
+     */
+    public static ValidationLimits effective(ValidationLimits perDefinition) {
+        ValidationLimits base = global();
+        if (perDefinition == null) {
+            return base;
+        }
+        ValidationLimits merged = perDefinition.effective;
+        if (merged == null || merged.effectiveBase != base) {
+            merged = base.overriddenBy(perDefinition);
+            merged.effectiveBase = base;
+            perDefinition.effective = merged;
+        }
+        return merged;
+    }
+
+    private static ValidationLimits global() {
+        ValidationLimits base = global;
+        if (base == null) {
+            ValidatingYamlParameterConfiguration configuration = ValidatingYamlParameterConfiguration.get();
+            base = DEFAULTS.overriddenBy(configuration == null ? null : configuration.getLimits());
+            global = base;
+        }
+        return base;
+    }
+
+    /**
+     * Forget the effective limits built from the global limits, when they are replaced.
+     */
+    static void globalLimitsChanged() {
+        global = null;
+    }
+
+    private void changed() {
+        loaderOptions = null;
+        effective = null;
+    }
+
+    ValidationLimits overriddenBy(ValidationLimits other) {
+        if (other == null) {
+            return this;
+        }
+        return new ValidationLimits(
+                other.maxBytes != null ? other.maxBytes : maxBytes,
+                other.maxCodePoints != null ? other.maxCodePoints : maxCodePoints,
+                other.maxDepth != null ? other.maxDepth : maxDepth,
+                other.maxNodes != null ? other.maxNodes : maxNodes,
+                other.maxAliases != null ? other.maxAliases : maxAliases)
+                .withMaxExpansionFactor(other.maxExpansionFactor != null ? other.maxExpansionFactor : maxExpansionFactor)
+                .withMaxDocuments(other.maxDocuments != null ? other.maxDocuments : maxDocuments)
+                .withMaxTotalNodes(other.maxTotalNodes != null ? other.maxTotalNodes : maxTotalNodes)
+                .withTimeoutMillis(other.timeoutMillis != null ? other.timeoutMillis : timeoutMillis);
+    }
+
+    /**
+     * Stable representation used as part of the validation cache key. The timeout is left out
+     * since timed out validations are never cached.
+     */
+    String key() {
+        return "bytes=" + maxBytes + ",codePoints=" + maxCodePoints + ",depth=" + maxDepth
+                + ",nodes=" + maxNodes + ",aliases=" + maxAliases + ",expansion=" + maxExpansionFactor
+                + ",documents=" + maxDocuments + ",totalNodes=" + maxTotalNodes;
+    }
+
+    /**
+     * Readable summary of the limits, including the timeout.
+     */
+    String describe() {
+        return key() + ",timeoutMillis=" + timeoutMillis;
+    }
+
+    /**
+     * SnakeYAML options enforcing the same limits, as a second line of defence.
+     */
+    LoaderOptions toLoaderOptions() {
+        LoaderOptions options = loaderOptions;
+        if (options == null) {
+            options = new LoaderOptions();
+            options.setCodePointLimit(unlimitedIfUnset(maxCodePoints));
+            options.setNestingDepthLimit(unlimitedIfUnset(maxDepth));
+            options.setMaxAliasesForCollections(unlimitedIfUnset(maxAliases));
+            loaderOptions = options;
+        }
+        return options;
+    }
+
+    static boolean isSet(Integer limit) {
+        return limit != null && limit > 0;
+    }
+
+    static int unlimitedIfUnset(Integer limit) {
+        return isSet(limit) ? limit : Integer.MAX_VALUE;
+    }
+
+    /**
+     * Linear scan of the raw text checking the size limits, without encoding or copying it.
+     *
+     * @return a description of the violated limit, or {@code null} if the text is within limits
+     */
+    String prescan(String text) {
+        boolean checkBytes = isSet(maxBytes);
+        boolean checkCodePoints = isSet(maxCodePoints);
+        if (!checkBytes && !checkCodePoints) {
+            return null;
+        }
+        int length = text.length();
+        if (checkBytes && length > maxBytes) {
+            // every char is at least one byte
+            return "document exceeds " + maxBytes + " bytes";
+        }
+        if ((!checkBytes || 3L * length <= maxBytes) && (!checkCodePoints || length <= maxCodePoints)) {
+            // every char is at most three bytes and at most one code point
+            return null;
+        }
+        long bytes = 0;
+        long codePoints = 0;
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                bytes += 1;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(text.charAt(i + 1))) {
+                bytes += 4;
+                i++;
+            } else {
+                bytes += 3;
+            }
+            codePoints++;
+            if (checkBytes && bytes > maxBytes) {
+                return "document exceeds " + maxBytes + " bytes";
+            }
+            if (checkCodePoints && codePoints > maxCodePoints) {
+                return "document exceeds " + maxCodePoints + " code points";
+            }
+        }
+        return null;
+    }
+
+    @Extension
+    public static class DescriptorImpl extends Descriptor<ValidationLimits> {
+        @Override
+        public String getDisplayName() {
+            return "Resource limits";
+        }
+    }
+}
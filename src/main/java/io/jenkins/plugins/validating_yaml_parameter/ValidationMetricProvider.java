@@ -0,0 +1,79 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 csanchez.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.jenkins.plugins.validating_yaml_parameter;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.MetricSet;
+import hudson.Extension;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import jenkins.metrics.api.MetricProvider;
+
+/**
+ * Publishes the {@link ValidationMetrics} to the Metrics plugin, when it is installed, as gauges
+ * read on demand.
+ *
+ * @author csanchez
+ */
+@Extension(optional = true)
+public class ValidationMetricProvider extends MetricProvider {
+
+    static final String PREFIX = "validating-yaml-parameter";
+
+    private final MetricSet metrics = ValidationMetricProvider::metrics;
+
+    @Override
+    public MetricSet getMetricSet() {
+        return metrics;
+    }
+
+    static Map<String, Metric> metrics() {
+        ValidationMetrics m = ValidationMetrics.get();
+        Map<String, Metric> metrics = new HashMap<>();
+        for (ValidationEntryPoint entryPoint : ValidationEntryPoint.values()) {
+            ValidationMetrics.Counts counts = m.getCounts(entryPoint);
+            String name = entryPoint.name().toLowerCase(Locale.ENGLISH);
+            for (ValidationResult.Outcome outcome : ValidationResult.Outcome.values()) {
+                metrics.put(MetricRegistry.name(PREFIX, "validations", name, outcome.name().toLowerCase(Locale.ENGLISH)),
+                        (Gauge<Long>) () -> counts.get(outcome));
+            }
+            metrics.put(MetricRegistry.name(PREFIX, "validations", name, "millis"),
+                    (Gauge<Long>) () -> counts.getTotalNanos() / 1_000_000);
+        }
+        for (double quantile : new double[] {0.5, 0.95, 0.99}) {
+            String p = "p" + Math.round(quantile * 100);
+            metrics.put(MetricRegistry.name(PREFIX, "latency", "micros", p), (Gauge<Long>) () -> m.getLatency().getPercentile(quantile));
+            metrics.put(MetricRegistry.name(PREFIX, "size", "characters", p), (Gauge<Long>) () -> m.getSizes().getPercentile(quantile));
+        }
+        ValidationCache cache = ValidationCache.get();
+        metrics.put(MetricRegistry.name(PREFIX, "cache", "hits"), (Gauge<Long>) cache::getHits);
+        metrics.put(MetricRegistry.name(PREFIX, "cache", "misses"), (Gauge<Long>) cache::getMisses);
+        metrics.put(MetricRegistry.name(PREFIX, "cache", "evictions"), (Gauge<Long>) cache::getEvictions);
+        metrics.put(MetricRegistry.name(PREFIX, "cache", "size"), (Gauge<Integer>) cache::getSize);
+        return metrics;
+    }
+}
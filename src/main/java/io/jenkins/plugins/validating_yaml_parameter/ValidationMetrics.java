@@ -0,0 +1,320 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 csanchez.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.jenkins.plugins.validating_yaml_parameter;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import jenkins.util.SystemProperties;
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
+
+/**
+ * Counters and histograms of the validations done by the plugin, per {@link ValidationEntryPoint}
+ * and per job.
+ *
+ * <p>Recording a validation only bumps a few {@link LongAdder}s and histogram buckets; summaries
+ * are computed when someone reads them, from {@link ValidationMetricsAction} or the Metrics plugin.
+ *
+ * @author csanchez
+ */
+public final class ValidationMetrics {
+
+    /** Jobs tracked individually, the others are counted together. */
+    static final int MAX_JOBS = SystemProperties.getInteger(ValidationMetrics.class.getName() + ".maxJobs", 500);
+
+    static final String OTHER_JOBS = "(other)";
+
+    private static final ValidationMetrics INSTANCE = new ValidationMetrics();
+
+    private final Map<ValidationEntryPoint, Counts> entryPoints = new ConcurrentHashMap<>();
+    private final Map<String, Counts> jobs = new ConcurrentHashMap<>();
+    private final Histogram latency = new Histogram();
+    private final Histogram sizes = new Histogram();
+
+    ValidationMetrics() {
+        for (ValidationEntryPoint entryPoint : ValidationEntryPoint.values()) {
+            entryPoints.put(entryPoint, new Counts());
+        }
+    }
+
+    public static ValidationMetrics get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Run {@code validation} of a value and record how long it took and how it ended, also as a
+     * {@link ValidationEvent} if Flight Recorder is recording them. A validation that throws is
+     * recorded with the {@link ValidationResult.Outcome#ERROR} outcome before the exception propagates.
+     *
+     * @param job full name of the job the value belongs to, {@code null} if unknown
+     * @param parameter name of the parameter
+     * @param length length of the value in characters
+     */
+    ValidationResult measure(ValidationEntryPoint entryPoint, String job, String parameter, long length, Supplier<ValidationResult> validation) {
+        return measure(entryPoint, job, parameter, () -> length, validation);
+    }
+
+    /**
+     * Like {@link #measure(ValidationEntryPoint, String, String, long, Supplier)}, for a value
+     * whose length is only known once it has been validated, such as a streamed one.
+     */
+    ValidationResult measure(ValidationEntryPoint entryPoint, String job, String parameter, LongSupplier length, Supplier<ValidationResult> validation) {
+        ValidationEvent event = new ValidationEvent();
+        event.begin();
+        long start = System.nanoTime();
+        ValidationResult vres = null;
+        try {
+            vres = validation.get();
+            return vres;
+        } finally {
+            // a validation that threw is still recorded, as an error
+            ValidationResult.Outcome outcome = vres == null ? ValidationResult.Outcome.ERROR : vres.getOutcome();
+            long chars = length.getAsLong();
+            record(entryPoint, job, chars, System.nanoTime() - start, outcome);
+            event.end();
+            if (event.shouldCommit()) {
+                event.job = job;
+                event.parameter = parameter;
+                event.entryPoint = entryPoint.name();
+                event.length = chars;
+                event.nodes = vres == null ? 0 : vres.getNodes();
+                event.outcome = outcome.name();
+                event.commit();
+            }
+        }
+    }
+
+    void record(ValidationEntryPoint entryPoint, String job, long length, long nanos, ValidationResult.Outcome outcome) {
+        entryPoints.get(entryPoint).add(outcome, nanos);
+        if (job != null) {
+            Counts counts = jobs.get(job);
+            if (counts == null) {
+                counts = jobs.size() < MAX_JOBS
+                        ? jobs.computeIfAbsent(job, k -> new Counts())
+                        : jobs.computeIfAbsent(OTHER_JOBS, k -> new Counts());
+            }
+            counts.add(outcome, nanos);
+        }
+        latency.add(nanos / 1000);
+        sizes.add(length);
+    }
+
+    public Counts getCounts(ValidationEntryPoint entryPoint) {
+        return entryPoints.get(entryPoint);
+    }
+
+    /**
+     * Counts of the validations of values of {@code job}, {@code null} if there were none.
+     */
+    public Counts getJobCounts(String job) {
+        return jobs.get(job);
+    }
+
+    /**
+     * Duration of validations, in microseconds.
+     */
+    public Histogram getLatency() {
+        return latency;
+    }
+
+    /**
+     * Length of validated values, in characters.
+     */
+    public Histogram getSizes() {
+        return sizes;
+    }
+
+    /**
+     * Forget everything recorded so far.
+     */
+    public void reset() {
+        for (Counts counts : entryPoints.values()) {
+            counts.reset();
+        }
+        jobs.clear();
+        latency.reset();
+        sizes.reset();
+    }
+
+    JSONObject toJSON() {
+        JSONObject json = new JSONObject();
+        JSONObject byEntryPoint = new JSONObject();
+        for (ValidationEntryPoint entryPoint : ValidationEntryPoint.values()) {
+            byEntryPoint.put(entryPoint.name(), entryPoints.get(entryPoint).toJSON());
+        }
+        json.put("entryPoints", byEntryPoint);
+        JSONObject byJob = new JSONObject();
+        for (Map.Entry<String, Counts> job : new TreeMap<>(jobs).entrySet()) {
+            byJob.put(job.getKey(), job.getValue().toJSON());
+        }
+        json.put("jobs", byJob);
+        json.put("latencyMicros", latency.toJSON());
+        json.put("sizeCharacters", sizes.toJSON());
+        ValidationCache cache = ValidationCache.get();
+        JSONObject cacheJson = new JSONObject();
+        cacheJson.put("size", cache.getSize());
+        cacheJson.put("weight", cache.getWeight());
+        cacheJson.put("hits", cache.getHits());
+        cacheJson.put("misses", cache.getMisses());
+        cacheJson.put("evictions", cache.getEvictions());
+        json.put("cache", cacheJson);
+        return json;
+    }
+
+    /**
+     * Number of validations per {@link ValidationResult.Outcome} and their total duration.
+     */
+    public static final class Counts {
+
+        private final LongAdder[] outcomes = new LongAdder[ValidationResult.Outcome.values().length];
+        private final LongAdder nanos = new LongAdder();
+
+        Counts() {
+            for (int i = 0; i < outcomes.length; i++) {
+                outcomes[i] = new LongAdder();
+            }
+        }
+
+        void add(ValidationResult.Outcome outcome, long duration) {
+            outcomes[outcome.ordinal()].increment();
+            nanos.add(duration);
+        }
+
+        public long get(ValidationResult.Outcome outcome) {
+            return outcomes[outcome.ordinal()].sum();
+        }
+
+        public long getTotal() {
+            long total = 0;
+            for (LongAdder outcome : outcomes) {
+                total += outcome.sum();
+            }
+            return total;
+        }
+
+        public long getTotalNanos() {
+            return nanos.sum();
+        }
+
+        void reset() {
+            for (LongAdder outcome : outcomes) {
+                outcome.reset();
+            }
+            nanos.reset();
+        }
+
+        JSONObject toJSON() {
+            JSONObject json = new JSONObject();
+            for (ValidationResult.Outcome outcome : ValidationResult.Outcome.values()) {
+                json.put(outcome.name(), get(outcome));
+            }
+            json.put("totalMillis", getTotalNanos() / 1_000_000);
+            return json;
+        }
+    }
+
+    /**
+     * Histogram of non-negative values in power-of-two buckets: bucket {@code i} counts the
+     * values below {@code 2^i} and not below {@code 2^(i-1)}.
+     */
+    public static final class Histogram {
+
+        private static final int BUCKETS = 64;
+
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+        static int bucket(long value) {
+            return value <= 0 ? 0 : Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(value));
+        }
+
+        /**
+         * Upper bound, exclusive, of the values in bucket {@code i}.
+         */
+        static long upperBound(int i) {
+            return i >= 63 ? Long.MAX_VALUE : 1L << i;
+        }
+
+        void add(long value) {
+            buckets.incrementAndGet(bucket(value));
+        }
+
+        public long getCount() {
+            long count = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                count += buckets.get(i);
+            }
+            return count;
+        }
+
+        /**
+         * Upper bound of the bucket holding the {@code quantile} of the values, {@code 0} if there are none.
+         */
+        public long getPercentile(double quantile) {
+            long count = getCount();
+            if (count == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(quantile * count);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += buckets.get(i);
+                if (seen >= rank && seen > 0) {
+                    return upperBound(i);
+                }
+            }
+            return upperBound(BUCKETS - 1);
+        }
+
+        void reset() {
+            for (int i = 0; i < BUCKETS; i++) {
+                buckets.set(i, 0);
+            }
+        }
+
+        JSONObject toJSON() {
+            JSONObject json = new JSONObject();
+            json.put("count", getCount());
+            json.put("p50", getPercentile(0.5));
+            json.put("p95", getPercentile(0.95));
+            json.put("p99", getPercentile(0.99));
+            JSONArray nonEmpty = new JSONArray();
+            for (int i = 0; i < BUCKETS; i++) {
+                long n = buckets.get(i);
+                if (n > 0) {
+                    JSONObject bucket = new JSONObject();
+                    bucket.put("lessThan", upperBound(i));
+                    bucket.put("count", n);
+                    nonEmpty.add(bucket);
+                }
+            }
+            json.put("buckets", nonEmpty);
+            return json;
+        }
+    }
+}
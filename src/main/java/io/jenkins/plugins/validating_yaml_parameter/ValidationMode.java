@@ -0,0 +1,87 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 csanchez.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.jenkins.plugins.validating_yaml_parameter;
+
+import org.yaml.snakeyaml.error.YAMLException;
+import org.yaml.snakeyaml.events.Event;
+import org.yaml.snakeyaml.nodes.Node;
+
+/**
+ * How much of the SnakeYAML pipeline is run to decide whether a value is valid.
+ *
+ * <p>{@link #CONSTRUCT} builds the complete Java object graph, the way the plugin always did.
+ * {@link #COMPOSE} stops at the node graph and {@link #PARSE} only drives the event stream,
+ * which proves the document is well-formed without allocating its maps, lists and scalars.
+ * The cheaper modes do not reject tags that only the constructor knows to be unsafe. A value
+ * checked against a {@link JsonSchema} is always composed, since the schema applies to its nodes.
+ *
+ * @author csanchez
+ */
+public enum ValidationMode {
+
+    CONSTRUCT("Full construction") {
+        @Override
+        Node check(YamlValidator.Pipeline pipeline, GuardedParser parser, ValidationLimits limits) {
+            Node node = pipeline.compose(parser, limits);
+            pipeline.construct(node);
+            return node;
+        }
+    },
+    COMPOSE("Compose only") {
+        @Override
+        Node check(YamlValidator.Pipeline pipeline, GuardedParser parser, ValidationLimits limits) {
+            return pipeline.compose(parser, limits);
+        }
+    },
+    PARSE("Event stream only") {
+        @Override
+        Node check(YamlValidator.Pipeline pipeline, GuardedParser parser, ValidationLimits limits) {
+            while (!parser.checkEvent(Event.ID.StreamEnd)) {
+                parser.getEvent();
+                if (parser.getDocuments() > 1) {
+                    throw new YAMLException("expected a single document in the stream but found another document");
+                }
+            }
+            parser.getEvent();
+            return null;
+        }
+    };
+
+    private final String displayName;
+
+    ValidationMode(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    /**
+     * Runs the check, throwing whatever SnakeYAML throws for an invalid document.
+     *
+     * @return the composed document, or {@code null} if the mode does not compose it
+     */
+    abstract Node check(YamlValidator.Pipeline pipeline, GuardedParser parser, ValidationLimits limits);
+}
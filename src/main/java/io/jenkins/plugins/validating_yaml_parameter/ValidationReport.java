@@ -0,0 +1,207 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 csanchez.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.jenkins.plugins.validating_yaml_parameter;
+
+import hudson.Extension;
+import hudson.model.Run;
+import hudson.model.listeners.RunListener;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import jenkins.model.RunAction2;
+
+/**
+ * What validation did for each YAML parameter of a build: size and shape of the value, time spent
+ * parsing it, whether the result was reused, and under which settings.
+ *
+ * <p>It is recorded when the build starts, from the validation each value went through when it was
+ * submitted, and saved with the build, so viewing it does not parse anything.
+ *
+ * @author csanchez
+ */
+public class ValidationReport implements RunAction2 {
+
+    private final List<Entry> entries;
+    private transient Run<?, ?> run;
+
+    ValidationReport(List<Entry> entries) {
+        this.entries = entries;
+    }
+
+    public List<Entry> getEntries() {
+        return Collections.unmodifiableList(entries);
+    }
+
+    public Run<?, ?> getRun() {
+        return run;
+    }
+
+    @Override
+    public void onAttached(Run<?, ?> r) {
+        this.run = r;
+    }
+
+    @Override
+    public void onLoad(Run<?, ?> r) {
+        this.run = r;
+    }
+
+    @Override
+    public String getIconFileName() {
+        return "symbol-parameters";
+    }
+
+    @Override
+    public String getDisplayName() {
+        return "YAML Parameter Validation";
+    }
+
+    @Override
+    public String getUrlName() {
+        return "yaml-parameter-validation";
+    }
+
+    static ValidationReport of(List<ValidatingYamlParameterValue> values) {
+        List<Entry> entries = new ArrayList<>();
+        for (ValidatingYamlParameterValue value : values) {
+            entries.add(new Entry(value));
+        }
+        return new ValidationReport(entries);
+    }
+
+    /**
+     * Validation of a single parameter.
+     */
+    public static final class Entry {
+
+        private final String name;
+        private final long length;
+        private final String mode;
+        private final String limits;
+        private final boolean validated;
+        private String outcome;
+        private int documents;
+        private int maxDepth;
+        private int nodes;
+        private int aliases;
+        private long parseNanos;
+        private boolean cacheHit;
+
+        Entry(ValidatingYamlParameterValue value) {
+            this.name = value.getName();
+            this.length = value.getLength();
+            this.mode = value.getValidationMode().name();
+            this.limits = ValidationLimits.effective(value.getLimits()).describe();
+            ValidationResult vres = value.getValidation();
+            this.validated = vres != null;
+            if (vres != null) {
+                this.outcome = vres.getOutcome().name();
+                this.documents = vres.getDocuments();
+                this.maxDepth = vres.getMaxDepth();
+                this.nodes = vres.getNodes();
+                this.aliases = vres.getAliases();
+                this.parseNanos = vres.getParseNanos();
+                this.cacheHit = vres.isCacheHit();
+            }
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Length of the value in characters.
+         */
+        public long getLength() {
+            return length;
+        }
+
+        public String getMode() {
+            return mode;
+        }
+
+        /**
+         * The effective limits the value was checked against.
+         */
+        public String getLimits() {
+            return limits;
+        }
+
+        /**
+         * Whether the value was validated when the build was scheduled, possibly before a restart;
+         * values handed over as they were, like those of a replayed build, were not.
+         */
+        public boolean isValidated() {
+            return validated;
+        }
+
+        public String getOutcome() {
+            return outcome;
+        }
+
+        public int getDocuments() {
+            return documents;
+        }
+
+        public int getMaxDepth() {
+            return maxDepth;
+        }
+
+        public int getNodes() {
+            return nodes;
+        }
+
+        public int getAliases() {
+            return aliases;
+        }
+
+        public long getParseNanos() {
+            return parseNanos;
+        }
+
+        public String getParseMillis() {
+            return String.format(Locale.ROOT, "%.3f", parseNanos / 1_000_000.0);
+        }
+
+        /**
+         * Whether the result came from the validation cache or a fingerprint: the statistics are
+         * those of the validation it reused.
+         */
+        public boolean isCacheHit() {
+            return cacheHit;
+        }
+    }
+
+    @Extension
+    public static class Listener extends RunListener<Run<?, ?>> {
+        @Override
+        public void onInitialize(Run<?, ?> r) {
+            List<ValidatingYamlParameterValue> values = ValueStorage.values(r);
+            if (!values.isEmpty() && r.getAction(ValidationReport.class) == null) {
+                r.addAction(of(values));
+            }
+        }
+    }
+}
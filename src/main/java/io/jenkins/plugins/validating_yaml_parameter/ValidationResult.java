@@ -23,13 +23,39 @@
  */
 package io.jenkins.plugins.validating_yaml_parameter;
 
+import java.io.Serializable;
+
 /**
  *
  * @author csanchez
  */
-public class ValidationResult {
+public class ValidationResult implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Why a value was accepted or rejected.
+     */
+    public enum Outcome {
+        VALID,
+        INVALID,
+        SCHEMA_VIOLATION,
+        LIMIT_EXCEEDED,
+        TIMEOUT,
+        /** The validation itself failed, with an exception, and produced no result. */
+        ERROR
+    }
+
     private boolean result;
     private String error;
+    private Outcome outcome;
+    private int nodes;
+    private int documents;
+    private int maxDepth;
+    private int aliases;
+    private long parseNanos;
+    private boolean cacheHit;
+    private int failedDocument;
 
     public ValidationResult() {
     }
@@ -49,4 +75,107 @@ public class ValidationResult {
     public void setError(String error) {
         this.error = error;
     }
+
+    public Outcome getOutcome() {
+        if (outcome != null) {
+            return outcome;
+        }
+        return result ? Outcome.VALID : Outcome.INVALID;
+    }
+
+    public void setOutcome(Outcome outcome) {
+        this.outcome = outcome;
+    }
+
+    /**
+     * Number of nodes read before the validation ended.
+     */
+    public int getNodes() {
+        return nodes;
+    }
+
+    public void setNodes(int nodes) {
+        this.nodes = nodes;
+    }
+
+    /**
+     * Number of documents started before the validation ended.
+     */
+    public int getDocuments() {
+        return documents;
+    }
+
+    /**
+     * Deepest nesting of collections reached.
+     */
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * Number of aliases of collections, the ones counted against the alias limit.
+     */
+    public int getAliases() {
+        return aliases;
+    }
+
+    /**
+     * Time spent parsing the value, in nanoseconds.
+     */
+    public long getParseNanos() {
+        return parseNanos;
+    }
+
+    void setStatistics(int documents, int maxDepth, int aliases, long parseNanos) {
+        this.documents = documents;
+        this.maxDepth = maxDepth;
+        this.aliases = aliases;
+        this.parseNanos = parseNanos;
+    }
+
+    /**
+     * Position, from 1, of the document of a multi-document value that failed, {@code 0} if none did
+     * or the value was checked as a single document.
+     */
+    public int getFailedDocument() {
+        return failedDocument;
+    }
+
+    void setFailedDocument(int failedDocument) {
+        this.failedDocument = failedDocument;
+    }
+
+    /**
+     * Whether this result was reused from an earlier validation of the same value rather than computed.
+     */
+    public boolean isCacheHit() {
+        return cacheHit;
+    }
+
+    /**
+     * A copy of this result, flagged as a {@link #isCacheHit() cache hit}.
+     */
+    ValidationResult reused() {
+        ValidationResult copy = new ValidationResult();
+        copy.result = result;
+        copy.error = error;
+        copy.outcome = outcome;
+        copy.nodes = nodes;
+        copy.documents = documents;
+        copy.maxDepth = maxDepth;
+        copy.aliases = aliases;
+        copy.parseNanos = parseNanos;
+        copy.failedDocument = failedDocument;
+        copy.cacheHit = true;
+        return copy;
+    }
+
+    /**
+     * Whether the value was turned down without being found invalid: it exceeded a limit or
+     * could not be validated in time.
+     */
+    public boolean isRejected() {
+        Outcome o = getOutcome();
+        return o == Outcome.LIMIT_EXCEEDED || o == Outcome.TIMEOUT;
+    }
 }
@@ -0,0 +1,173 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 csanchez.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.jenkins.plugins.validating_yaml_parameter;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * {@link Reader} that copies what it reads to a {@link BlobStore} file, for values that are
+ * validated while they are streamed in, from the CLI or an uploaded file, instead of being read
+ * into a {@link String} first.
+ *
+ * <p>The size limits, which for a {@link String} are checked by a pre-scan, are checked as the
+ * characters go by. The digest of the value is computed on the way too, so that once the parser
+ * is done {@link #finish(String, String)} can file the copy under it in the store of the job the
+ * value is submitted to. There it waits, under a reference of its own that is saved with the
+ * value, while the build is in the queue, also across a restart. When the build starts
+ * {@link ValueStorage} hands the value over to it; when the queue item is cancelled the reference
+ * is released. References that no queued value holds any more, such as those of a submission
+ * merged into an identical queued one, are released once they are {@link #ORPHAN_MILLIS} old.
+ *
+ * @author csanchez
+ */
+final class ValueSpool extends Reader {
+
+    /** Prefix of the references held by spooled values. */
+    static final String REFERENCE_PREFIX = "queued-";
+
+    /** Age after which a spool reference that no queued value holds is released. */
+    static final long ORPHAN_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    private final Reader source;
+    private final ValidationLimits limits;
+    private final File directory;
+    private final File tmp;
+    private final MessageDigest digest;
+    private final Writer writer;
+    private long length;
+    private long bytes;
+    private long codePoints;
+    private boolean afterHighSurrogate;
+    private boolean finished;
+
+    /**
+     * @param directory store of the job the value is submitted to, see {@link ValueStorage#directory(hudson.model.Job)}
+     */
+    ValueSpool(Reader source, ValidationLimits limits, File directory) throws IOException {
+        this.source = source;
+        this.limits = limits;
+        this.directory = directory;
+        this.tmp = BlobStore.createTempFile(directory, "spool");
+        this.digest = ContentDigest.newDigest();
+        ContentDigest.update(digest, BlobStore.DIGEST_CONTEXT);
+        digest.update((byte) 0);
+        this.writer = new OutputStreamWriter(new DigestOutputStream(new GZIPOutputStream(Files.newOutputStream(tmp.toPath())), digest),
+                StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public int read(char[] buffer, int offset, int count) throws IOException {
+        int n = source.read(buffer, offset, count);
+        if (n > 0) {
+            account(buffer, offset, n);
+            writer.write(buffer, offset, n);
+            length += n;
+        }
+        return n;
+    }
+
+    private void account(char[] buffer, int offset, int count) {
+        for (int i = offset; i < offset + count; i++) {
+            char c = buffer[i];
+            if (afterHighSurrogate && Character.isLowSurrogate(c)) {
+                // the pair was counted with its high surrogate
+                afterHighSurrogate = false;
+                continue;
+            }
+            afterHighSurrogate = Character.isHighSurrogate(c);
+            bytes += c < 0x80 ? 1 : c < 0x800 ? 2 : afterHighSurrogate ? 4 : 3;
+            codePoints++;
+        }
+        if (ValidationLimits.isSet(limits.getMaxBytes()) && bytes > limits.getMaxBytes()) {
+            throw new LimitExceededException("document exceeds " + limits.getMaxBytes() + " bytes");
+        }
+        if (ValidationLimits.isSet(limits.getMaxCodePoints()) && codePoints > limits.getMaxCodePoints()) {
+            throw new LimitExceededException("document exceeds " + limits.getMaxCodePoints() + " code points");
+        }
+    }
+
+    /**
+     * Copy whatever the parser left unread, and file the value in the store of the job.
+     *
+     * @return the value, stored under a spool reference
+     */
+    ValidatingYamlParameterValue finish(String name, String failedValidationMessage) throws IOException {
+        char[] buffer = new char[8192];
+        while (read(buffer, 0, buffer.length) >= 0) {
+            // drain
+        }
+        writer.close();
+        finished = true;
+        String hex = HexFormat.of().formatHex(digest.digest());
+        String reference = REFERENCE_PREFIX + UUID.randomUUID();
+        BlobStore.adopt(directory, hex, tmp, reference);
+        ValidatingYamlParameterValue value = new ValidatingYamlParameterValue(name, null, failedValidationMessage);
+        value.spooled(hex, length, directory, reference);
+        return value;
+    }
+
+    /**
+     * Release the spool references in the store {@code dir} that are not {@code held} by a queued value and
+     * were taken before {@code before}, in milliseconds since the epoch.
+     */
+    static void releaseOrphans(File dir, Set<String> held, long before) throws IOException {
+        BlobStore.releaseIf(dir, marker -> marker.getName().startsWith(REFERENCE_PREFIX)
+                && !held.contains(marker.getName()) && marker.lastModified() < before);
+    }
+
+    /**
+     * Number of characters read so far.
+     */
+    long getLength() {
+        return length;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            source.close();
+        } finally {
+            if (!finished) {
+                try {
+                    writer.close();
+                } finally {
+                    Files.deleteIfExists(tmp.toPath());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,239 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 csanchez.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.jenkins.plugins.validating_yaml_parameter;
+
+import hudson.Extension;
+import hudson.model.Actionable;
+import hudson.model.InvisibleAction;
+import hudson.model.Job;
+import hudson.model.ParameterValue;
+import hudson.model.ParametersAction;
+import hudson.model.Queue;
+import hudson.model.Run;
+import hudson.model.listeners.RunListener;
+import hudson.model.queue.QueueListener;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.model.RunAction2;
+import jenkins.util.SystemProperties;
+
+/**
+ * Keeps large YAML parameter values out of {@code build.xml}.
+ *
+ * <p>When a build starts, every value longer than {@link #THRESHOLD} characters is moved to the
+ * {@link BlobStore} of its job, where identical values of different builds are stored once, and
+ * dropped from the value object, which only keeps its digest and length. This action is
+ * attached to the build so that, when the build is loaded again, the values learn where their
+ * text lives and can read it back on demand. Deleting a build, by hand or through a build
+ * discarder, releases its references.
+ *
+ * <p>Values streamed in are already in the store of the job while their build is queued, see
+ * {@link ValueSpool}; the {@link QueueWatcher} looks after them until the build starts.
+ *
+ * @author csanchez
+ */
+public class ValueStorage extends InvisibleAction implements RunAction2 {
+
+    private static final Logger LOGGER = Logger.getLogger(ValueStorage.class.getName());
+
+    static final int THRESHOLD = SystemProperties.getInteger(ValueStorage.class.getName() + ".threshold", 64 * 1024);
+
+    static final String DIRECTORY = "yaml-parameters";
+
+    @Override
+    public void onAttached(Run<?, ?> r) {
+        attach(r);
+    }
+
+    @Override
+    public void onLoad(Run<?, ?> r) {
+        attach(r);
+    }
+
+    private static void attach(Run<?, ?> r) {
+        File dir = directory(r);
+        for (ValidatingYamlParameterValue value : values(r)) {
+            value.setStorageDirectory(dir);
+        }
+    }
+
+    static File directory(Run<?, ?> r) {
+        return directory(r.getParent());
+    }
+
+    static File directory(Job<?, ?> job) {
+        return new File(job.getRootDir(), DIRECTORY);
+    }
+
+    private static String reference(Run<?, ?> r) {
+        return String.valueOf(r.getNumber());
+    }
+
+    /**
+     * The YAML parameter values of a build or a queue item.
+     */
+    static List<ValidatingYamlParameterValue> values(Actionable owner) {
+        ParametersAction parameters = owner.getAction(ParametersAction.class);
+        List<ValidatingYamlParameterValue> values = new ArrayList<>();
+        if (parameters != null) {
+            for (ParameterValue value : parameters.getParameters()) {
+                if (value instanceof ValidatingYamlParameterValue yaml) {
+                    values.add(yaml);
+                }
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Move the large values of a build that is starting to its directory.
+     */
+    static void offload(Run<?, ?> r) {
+        boolean offloaded = false;
+        File dir = directory(r);
+        for (ValidatingYamlParameterValue value : values(r)) {
+            try {
+                offloaded |= value.offload(dir, THRESHOLD, reference(r));
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Could not store parameter " + value.getName() + " of " + r.getFullDisplayName()
+                        + " outside of build.xml, keeping it inline", e);
+            }
+        }
+        if (offloaded && r.getAction(ValueStorage.class) == null) {
+            r.addAction(new ValueStorage());
+        }
+    }
+
+    /**
+     * Release the stored values of a build that is being deleted.
+     */
+    static void release(Run<?, ?> r) {
+        File dir = directory(r);
+        for (ValidatingYamlParameterValue value : values(r)) {
+            try {
+                value.release(dir, reference(r));
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Could not release parameter " + value.getName() + " of " + r.getFullDisplayName(), e);
+            }
+        }
+    }
+
+    /**
+     * Release the spool references of the values of a queue item that left the queue without a build.
+     */
+    static void releaseSpooled(File dir, List<ValidatingYamlParameterValue> values) {
+        for (ValidatingYamlParameterValue value : values) {
+            try {
+                value.releaseSpool(dir);
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Could not release queued parameter " + value.getName(), e);
+            }
+        }
+    }
+
+    private static void holdSpooled(List<ValidatingYamlParameterValue> values, Set<String> held) {
+        for (ValidatingYamlParameterValue value : values) {
+            if (value.getSpoolReference() != null) {
+                held.add(value.getSpoolReference());
+            }
+        }
+    }
+
+    @Extension
+    public static class Listener extends RunListener<Run<?, ?>> {
+        @Override
+        public void onInitialize(Run<?, ?> r) {
+            offload(r);
+        }
+
+        @Override
+        public void onDeleted(Run<?, ?> r) {
+            release(r);
+        }
+    }
+
+    /**
+     * Points the spooled values of queued items, also those loaded again after a restart, whichever
+     * state they come back in, at the store of their job, and releases their references when the
+     * item leaves the queue without a build. Values whose build starts are handed over by
+     * {@link #offload(Run)} instead.
+     */
+    @Extension
+    public static class QueueWatcher extends QueueListener {
+        @Override
+        public void onEnterWaiting(Queue.WaitingItem wi) {
+            adopt(wi);
+        }
+
+        @Override
+        public void onEnterBlocked(Queue.BlockedItem bi) {
+            adopt(bi);
+        }
+
+        @Override
+        public void onEnterBuildable(Queue.BuildableItem bi) {
+            adopt(bi);
+        }
+
+        private static void adopt(Queue.Item item) {
+            if (item.task instanceof Job<?, ?> job) {
+                File dir = directory(job);
+                for (ValidatingYamlParameterValue value : values(item)) {
+                    if (value.getSpoolReference() != null) {
+                        value.setStorageDirectory(dir);
+                    }
+                }
+            }
+        }
+
+        @Override
+        public void onLeft(Queue.LeftItem li) {
+            if (!(li.task instanceof Job<?, ?> job)) {
+                return;
+            }
+            File dir = directory(job);
+            Set<String> held = new HashSet<>();
+            if (li.isCancelled()) {
+                releaseSpooled(dir, values(li));
+            } else {
+                // its build is taking the values over
+                holdSpooled(values(li), held);
+            }
+            for (Queue.Item item : Queue.getInstance().getItems(li.task)) {
+                holdSpooled(values(item), held);
+            }
+            try {
+                ValueSpool.releaseOrphans(dir, held, System.currentTimeMillis() - ValueSpool.ORPHAN_MILLIS);
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Could not release the unused queued parameters of " + job.getFullName(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,617 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 csanchez.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.jenkins.plugins.validating_yaml_parameter;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import org.yaml.snakeyaml.error.YAMLException;
+import org.yaml.snakeyaml.events.AliasEvent;
+import org.yaml.snakeyaml.events.CollectionStartEvent;
+import org.yaml.snakeyaml.events.Event;
+import org.yaml.snakeyaml.events.NodeEvent;
+import org.yaml.snakeyaml.events.ScalarEvent;
+import org.yaml.snakeyaml.nodes.NodeId;
+import org.yaml.snakeyaml.nodes.Tag;
+import org.yaml.snakeyaml.parser.Parser;
+import org.yaml.snakeyaml.resolver.Resolver;
+
+/**
+ * A parsed YAML document, or stream of documents, held in a few primitive arrays instead of an
+ * object graph.
+ *
+ * <p>Each node is a kind byte plus two ints. A collection points at a run of child indexes in a
+ * shared array (keys and values alternate for mappings), an alias is just another reference to
+ * the index of its anchor, and a scalar whose text appears verbatim in the source (plain
+ * scalars, which are the vast majority) is only an offset and a length into the original
+ * string. Other scalars keep the string the parser already decoded.
+ *
+ * <p>{@link #getRoot()} exposes the document as read-only {@link Map}, {@link List} and scalar
+ * views built on access; scalars are typed and decoded only when read. Merge keys and duplicate
+ * keys behave as they do with SnakeYAML's constructor. Tags outside the YAML core schema are
+ * ignored rather than rejected. A tree built from a stream of several documents exposes them as a
+ * list with one entry per document, as SnakeYAML's {@code loadAll} would return them.
+ *
+ * @author csanchez
+ */
+public final class YamlTree implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private static final byte SEQUENCE = 0;
+    private static final byte MAPPING = 1;
+    /** A mapping with merge or duplicate keys, which is flattened before use. */
+    private static final byte MAPPING_FLATTENED = 2;
+    private static final byte STR = 3;
+    private static final byte INT = 4;
+    private static final byte FLOAT = 5;
+    private static final byte BOOL = 6;
+    private static final byte NULL = 7;
+    private static final byte TIMESTAMP = 8;
+    private static final byte BINARY = 9;
+    private static final byte MERGE = 10;
+
+    private final String text;
+    private final byte[] kinds;
+    /** Collections: offset into {@link #children}; scalars: offset into {@link #text}, or {@code -1 - i} for {@code decoded[i]}. */
+    private final int[] starts;
+    /** Collections: number of children; scalars: length in {@link #text}. */
+    private final int[] lengths;
+    private final int[] children;
+    private final String[] decoded;
+    private final int root;
+    /** Root of each document when several were allowed, {@code null} for a single document. */
+    private final int[] documents;
+    private transient Object rootView;
+
+    private YamlTree(Builder builder) {
+        this.text = builder.text;
+        this.kinds = Arrays.copyOf(builder.kinds, builder.nodes);
+        this.starts = Arrays.copyOf(builder.starts, builder.nodes);
+        this.lengths = Arrays.copyOf(builder.lengths, builder.nodes);
+        this.children = Arrays.copyOf(builder.children, builder.childCount);
+        this.decoded = builder.decoded.toArray(new String[0]);
+        this.root = builder.roots.length == 0 ? -1 : builder.roots[0];
+        this.documents = builder.multiDocument ? Arrays.copyOf(builder.roots, builder.documents) : null;
+    }
+
+    /**
+     * Build the tree of the single document of {@code text} from the events of {@code parser}.
+     *
+     * @throws YAMLException if the document is invalid
+     */
+    static YamlTree build(String text, Parser parser, Resolver resolver) {
+        return build(text, parser, resolver, false);
+    }
+
+    /**
+     * Build the tree of {@code text} from the events of {@code parser}.
+     *
+     * @param multiDocument whether the stream may hold several documents
+     * @throws YAMLException if a document is invalid, or there are several and only one was allowed
+     */
+    static YamlTree build(String text, Parser parser, Resolver resolver, boolean multiDocument) {
+        Builder builder = new Builder(text, resolver, multiDocument);
+        while (!parser.checkEvent(Event.ID.StreamEnd)) {
+            builder.accept(parser.getEvent());
+        }
+        parser.getEvent();
+        return new YamlTree(builder);
+    }
+
+    /**
+     * The document as read-only maps, lists and scalars, {@code null} for an empty document. For a
+     * tree of several documents, a read-only list of them, empty if there is none.
+     */
+    public Object getRoot() {
+        if (rootView == null) {
+            if (documents != null) {
+                List<Object> views = new ArrayList<>(documents.length);
+                for (int document : documents) {
+                    views.add(value(document));
+                }
+                rootView = Collections.unmodifiableList(views);
+            } else if (root >= 0) {
+                rootView = value(root);
+            }
+        }
+        return rootView;
+    }
+
+    int getNodeCount() {
+        return kinds.length;
+    }
+
+    /**
+     * Number of nodes the document would have with every alias expanded, see {@link ExpansionEstimator}.
+     */
+    long expandedSize() {
+        if (root < 0) {
+            return 0;
+        }
+        long[] sizes = new long[kinds.length];
+        if (documents == null) {
+            return expandedSize(root, sizes);
+        }
+        long size = 0;
+        for (int document : documents) {
+            size += expandedSize(document, sizes);
+            if (size < 0) {
+                return Long.MAX_VALUE;
+            }
+        }
+        return size;
+    }
+
+    private long expandedSize(int node, long[] sizes) {
+        if (sizes[node] != 0) {
+            return sizes[node];
+        }
+        // placeholder while the children are visited, so that recursive references terminate
+        sizes[node] = 1;
+        long size = 1;
+        if (kinds[node] <= MAPPING_FLATTENED) {
+            for (int i = starts[node], end = i + lengths[node]; i < end; i++) {
+                size += expandedSize(children[i], sizes);
+                if (size < 0) {
+                    size = Long.MAX_VALUE;
+                }
+            }
+        }
+        sizes[node] = size;
+        return size;
+    }
+
+    private Object value(int node) {
+        switch (kinds[node]) {
+            case SEQUENCE:
+                return new SequenceView(this, node);
+            case MAPPING:
+            case MAPPING_FLATTENED:
+                return new MappingView(this, node);
+            case NULL:
+                return null;
+            case INT:
+                return YamlValidator.get().constructScalar(Tag.INT, string(node));
+            case FLOAT:
+                return YamlValidator.get().constructScalar(Tag.FLOAT, string(node));
+            case BOOL:
+                return YamlValidator.get().constructScalar(Tag.BOOL, string(node));
+            case TIMESTAMP:
+                return YamlValidator.get().constructScalar(Tag.TIMESTAMP, string(node));
+            case BINARY:
+                return YamlValidator.get().constructScalar(Tag.BINARY, string(node));
+            default:
+                return string(node);
+        }
+    }
+
+    private String string(int node) {
+        int start = starts[node];
+        return start < 0 ? decoded[-1 - start] : text.substring(start, start + lengths[node]);
+    }
+
+    /**
+     * Whether {@code node} is a string scalar equal to {@code s}, without decoding it.
+     */
+    private boolean isString(int node, String s) {
+        if (kinds[node] != STR && kinds[node] != MERGE) {
+            return false;
+        }
+        int start = starts[node];
+        if (start < 0) {
+            return decoded[-1 - start].equals(s);
+        }
+        return lengths[node] == s.length() && text.regionMatches(start, s, 0, s.length());
+    }
+
+    private static final class SequenceView extends AbstractList<Object> implements Serializable {
+
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final YamlTree tree;
+        private final int node;
+
+        SequenceView(YamlTree tree, int node) {
+            this.tree = tree;
+            this.node = node;
+        }
+
+        @Override
+        public Object get(int index) {
+            if (index < 0 || index >= size()) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            return tree.value(tree.children[tree.starts[node] + index]);
+        }
+
+        @Override
+        public int size() {
+            return tree.lengths[node];
+        }
+    }
+
+    private static final class MappingView extends AbstractMap<Object, Object> implements Serializable {
+
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final YamlTree tree;
+        private final int node;
+        private transient Map<Object, Object> flattened;
+
+        MappingView(YamlTree tree, int node) {
+            this.tree = tree;
+            this.node = node;
+        }
+
+        @Override
+        public Object get(Object key) {
+            if (tree.kinds[node] == MAPPING_FLATTENED) {
+                return flattened().get(key);
+            }
+            int value = find(key);
+            return value < 0 ? null : tree.value(value);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return tree.kinds[node] == MAPPING_FLATTENED ? flattened().containsKey(key) : find(key) >= 0;
+        }
+
+        @Override
+        public int size() {
+            return tree.kinds[node] == MAPPING_FLATTENED ? flattened().size() : tree.lengths[node] / 2;
+        }
+
+        @Override
+        public Set<Entry<Object, Object>> entrySet() {
+            if (tree.kinds[node] == MAPPING_FLATTENED) {
+                return Collections.unmodifiableMap(flattened()).entrySet();
+            }
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<Object, Object>> iterator() {
+                    return new Iterator<>() {
+                        private int i = tree.starts[node];
+                        private final int end = i + tree.lengths[node];
+
+                        @Override
+                        public boolean hasNext() {
+                            return i < end;
+                        }
+
+                        @Override
+                        public Entry<Object, Object> next() {
+                            if (i >= end) {
+                                throw new NoSuchElementException();
+                            }
+                            Entry<Object, Object> e = new SimpleImmutableEntry<>(tree.value(tree.children[i]), tree.value(tree.children[i + 1]));
+                            i += 2;
+                            return e;
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return tree.lengths[node] / 2;
+                }
+            };
+        }
+
+        /**
+         * Index of the value node for {@code key}, or -1.
+         */
+        private int find(Object key) {
+            int start = tree.starts[node];
+            for (int i = start + tree.lengths[node] - 2; i >= start; i -= 2) {
+                int k = tree.children[i];
+                if (key instanceof String s ? tree.isString(k, s) : Objects.equals(key, tree.value(k))) {
+                    return tree.children[i + 1];
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * The entries the way SafeConstructor builds them: merged keys first, explicit keys override them, later
+         * duplicates override earlier ones.
+         */
+        private Map<Object, Object> flattened() {
+            if (flattened == null) {
+                Map<Object, Object> map = new LinkedHashMap<>();
+                merge(node, map, new HashSet<>());
+                flattened = map;
+            }
+            return flattened;
+        }
+
+        private void merge(int mapping, Map<Object, Object> into, Set<Integer> visiting) {
+            if (!visiting.add(mapping)) {
+                return;
+            }
+            Map<Object, Object> own = new LinkedHashMap<>();
+            int start = tree.starts[mapping];
+            for (int i = start, end = start + tree.lengths[mapping]; i < end; i += 2) {
+                int key = tree.children[i];
+                int value = tree.children[i + 1];
+                if (tree.kinds[key] == MERGE) {
+                    List<Integer> sources = new ArrayList<>();
+                    if (tree.kinds[value] == SEQUENCE) {
+                        for (int j = tree.starts[value], e = j + tree.lengths[value]; j < e; j++) {
+                            sources.add(tree.children[j]);
+                        }
+                    } else {
+                        sources.add(value);
+                    }
+                    for (int source : sources) {
+                        if (tree.kinds[source] == MAPPING || tree.kinds[source] == MAPPING_FLATTENED) {
+                            Map<Object, Object> merged = new LinkedHashMap<>();
+                            merge(source, merged, visiting);
+                            merged.forEach(into::putIfAbsent);
+                        }
+                    }
+                } else {
+                    own.put(tree.value(key), tree.value(value));
+                }
+            }
+            own.forEach((k, v) -> {
+                into.remove(k);
+                into.put(k, v);
+            });
+            visiting.remove(mapping);
+        }
+    }
+
+    private static final class Builder {
+
+        private final String text;
+        private final Resolver resolver;
+        private final boolean bmpOnly;
+        private int codePoint;
+        private int charIndex;
+
+        private byte[] kinds = new byte[64];
+        private int[] starts = new int[64];
+        private int[] lengths = new int[64];
+        private int nodes;
+        private int[] children = new int[64];
+        private int childCount;
+        private final List<String> decoded = new ArrayList<>();
+        private final Map<String, Integer> anchors = new HashMap<>();
+        private final Deque<Frame> open = new ArrayDeque<>();
+        private final boolean multiDocument;
+        private int documents;
+        private int[] roots = new int[0];
+
+        Builder(String text, Resolver resolver, boolean multiDocument) {
+            this.text = text;
+            this.resolver = resolver;
+            this.multiDocument = multiDocument;
+            this.bmpOnly = text.length() == text.codePointCount(0, text.length());
+        }
+
+        void accept(Event event) {
+            switch (event.getEventId()) {
+                case DocumentStart:
+                    if (++documents > 1 && !multiDocument) {
+                        throw new YAMLException("expected a single document in the stream but found another document");
+                    }
+                    // anchors do not carry over from one document to the next
+                    anchors.clear();
+                    break;
+                case Scalar:
+                    scalar((ScalarEvent) event);
+                    break;
+                case Alias:
+                    String anchor = ((AliasEvent) event).getAnchor();
+                    Integer target = anchors.get(anchor);
+                    if (target == null) {
+                        throw new YAMLException("found undefined alias " + anchor);
+                    }
+                    attach(target, null);
+                    break;
+                case SequenceStart:
+                case MappingStart:
+                    boolean mapping = event.getEventId() == Event.ID.MappingStart;
+                    int node = add(mapping ? MAPPING : SEQUENCE, 0, 0);
+                    anchor((CollectionStartEvent) event, node);
+                    attach(node, null);
+                    open.push(new Frame(node, mapping));
+                    break;
+                case SequenceEnd:
+                case MappingEnd:
+                    Frame frame = open.pop();
+                    starts[frame.node] = childCount;
+                    lengths[frame.node] = frame.size;
+                    if (frame.flatten) {
+                        kinds[frame.node] = MAPPING_FLATTENED;
+                    }
+                    ensureChildren(frame.size);
+                    System.arraycopy(frame.children, 0, children, childCount, frame.size);
+                    childCount += frame.size;
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        private void scalar(ScalarEvent event) {
+            String value = event.getValue();
+            byte kind = kind(event);
+            int start = charIndex(event.getStartMark().getIndex());
+            int end = charIndex(event.getEndMark().getIndex());
+            int node;
+            if (end - start == value.length() && end <= text.length() && text.regionMatches(start, value, 0, value.length())) {
+                node = add(kind, start, value.length());
+            } else {
+                decoded.add(value);
+                node = add(kind, -decoded.size(), 0);
+            }
+            anchor(event, node);
+            attach(node, value);
+        }
+
+        private byte kind(ScalarEvent event) {
+            String tag = event.getTag();
+            Tag resolved;
+            if (tag == null || "!".equals(tag)) {
+                resolved = event.getImplicit().canOmitTagInPlainScalar()
+                        ? resolver.resolve(NodeId.scalar, event.getValue(), true)
+                        : Tag.STR;
+            } else {
+                resolved = new Tag(tag);
+            }
+            if (Tag.INT.equals(resolved)) {
+                return INT;
+            } else if (Tag.FLOAT.equals(resolved)) {
+                return FLOAT;
+            } else if (Tag.BOOL.equals(resolved)) {
+                return BOOL;
+            } else if (Tag.NULL.equals(resolved)) {
+                return NULL;
+            } else if (Tag.TIMESTAMP.equals(resolved)) {
+                return TIMESTAMP;
+            } else if (Tag.BINARY.equals(resolved)) {
+                return BINARY;
+            } else if (Tag.MERGE.equals(resolved)) {
+                return MERGE;
+            }
+            return STR;
+        }
+
+        private void anchor(NodeEvent event, int node) {
+            if (event.getAnchor() != null) {
+                anchors.put(event.getAnchor(), node);
+            }
+        }
+
+        /**
+         * Add {@code node} to the open collection, or make it the root of the current document.
+         *
+         * @param scalar the value of a scalar node, used to spot merge and duplicate keys
+         */
+        private void attach(int node, String scalar) {
+            Frame parent = open.peek();
+            if (parent == null) {
+                if (roots.length < documents) {
+                    roots = Arrays.copyOf(roots, Math.max(documents, roots.length * 2));
+                }
+                roots[documents - 1] = node;
+                return;
+            }
+            if (parent.mapping && parent.size % 2 == 0) {
+                if (kinds[node] == MERGE || scalar == null || !parent.keys().add(scalar)) {
+                    parent.flatten = true;
+                }
+            }
+            parent.add(node);
+        }
+
+        private int add(byte kind, int start, int length) {
+            if (nodes == kinds.length) {
+                int capacity = nodes * 2;
+                kinds = Arrays.copyOf(kinds, capacity);
+                starts = Arrays.copyOf(starts, capacity);
+                lengths = Arrays.copyOf(lengths, capacity);
+            }
+            kinds[nodes] = kind;
+            starts[nodes] = start;
+            lengths[nodes] = length;
+            return nodes++;
+        }
+
+        private void ensureChildren(int extra) {
+            if (childCount + extra > children.length) {
+                children = Arrays.copyOf(children, Math.max(children.length * 2, childCount + extra));
+            }
+        }
+
+        /**
+         * Convert a code point index of a mark into a char index. Marks arrive in increasing order,
+         * so one forward cursor is enough.
+         */
+        private int charIndex(int codePointIndex) {
+            if (bmpOnly) {
+                return codePointIndex;
+            }
+            if (codePointIndex < codePoint) {
+                codePoint = 0;
+                charIndex = 0;
+            }
+            while (codePoint < codePointIndex && charIndex < text.length()) {
+                charIndex += Character.charCount(text.codePointAt(charIndex));
+                codePoint++;
+            }
+            return charIndex;
+        }
+    }
+
+    private static final class Frame {
+        final int node;
+        final boolean mapping;
+        int[] children = new int[8];
+        int size;
+        boolean flatten;
+        private Set<String> keys;
+
+        Frame(int node, boolean mapping) {
+            this.node = node;
+            this.mapping = mapping;
+        }
+
+        void add(int child) {
+            if (size == children.length) {
+                children = Arrays.copyOf(children, size * 2);
+            }
+            children[size++] = child;
+        }
+
+        Set<String> keys() {
+            if (keys == null) {
+                keys = new HashSet<>();
+            }
+            return keys;
+        }
+    }
+}
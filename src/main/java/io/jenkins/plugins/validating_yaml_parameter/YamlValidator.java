@@ -0,0 +1,600 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 csanchez.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.jenkins.plugins.validating_yaml_parameter;
+
+import hudson.util.NamingThreadFactory;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import jenkins.util.SystemProperties;
+import org.yaml.snakeyaml.DumperOptions;
+import org.yaml.snakeyaml.LoaderOptions;
+import org.yaml.snakeyaml.composer.Composer;
+import org.yaml.snakeyaml.constructor.SafeConstructor;
+import org.yaml.snakeyaml.error.YAMLException;
+import org.yaml.snakeyaml.events.Event;
+import org.yaml.snakeyaml.nodes.Node;
+import org.yaml.snakeyaml.nodes.ScalarNode;
+import org.yaml.snakeyaml.nodes.Tag;
+import org.yaml.snakeyaml.parser.ParserImpl;
+import org.yaml.snakeyaml.reader.StreamReader;
+import org.yaml.snakeyaml.resolver.Resolver;
+
+/**
+ * The single YAML validation engine used by every entry point of the plugin.
+ *
+ * <p>SnakeYAML's resolver and constructor are not thread-safe, so each thread keeps one
+ * preconfigured {@link Pipeline} and reuses it for every validation it runs. Results go
+ * through the shared {@link ValidationCache}, and concurrent requests for the same value and
+ * settings wait for a single validation instead of each parsing the value themselves.
+ *
+ * <p>Large values are parsed on a small dedicated pool rather than on the request thread, and
+ * the caller gives up once the deadline of the limits has passed. The pool has a bounded queue,
+ * so a flood of validations is answered with timeouts instead of piling up parse work. Small
+ * values are validated in place since handing them over costs more than parsing them; the
+ * parser still stops at the deadline. The pool uses platform threads on purpose: a virtual
+ * thread per task would throw away the per-thread pipeline after every validation. The pools
+ * that validate many values at once, made with {@link #newExecutor(String, int, int)}, validate
+ * values of any size in place, so that they never wait for this pool nor fill it up.
+ *
+ * @author csanchez
+ */
+public final class YamlValidator {
+
+    static final int THREADS = SystemProperties.getInteger(YamlValidator.class.getName() + ".threads",
+            Math.max(2, Runtime.getRuntime().availableProcessors() / 2));
+    static final int QUEUE_DEPTH = SystemProperties.getInteger(YamlValidator.class.getName() + ".queueDepth", 64);
+    static final int INLINE_THRESHOLD = SystemProperties.getInteger(YamlValidator.class.getName() + ".inlineThreshold", 64 * 1024);
+
+    /** Line number of a position in a SnakeYAML error. */
+    private static final Pattern MARK_LINE = Pattern.compile("(, line )(\\d+)(, column )");
+
+    private static final YamlValidator INSTANCE = new YamlValidator(ValidationCache.get(), newExecutor(THREADS, QUEUE_DEPTH));
+
+    private final ValidationCache cache;
+    private final ExecutorService executor;
+    private final ConcurrentHashMap<String, CompletableFuture<ValidationResult>> inFlight = new ConcurrentHashMap<>();
+    private final ThreadLocal<Pipeline> pipeline = ThreadLocal.withInitial(Pipeline::new);
+
+    /**
+     * Validator that runs every validation on the calling thread.
+     */
+    YamlValidator(ValidationCache cache) {
+        this(cache, null);
+    }
+
+    YamlValidator(ValidationCache cache, ExecutorService executor) {
+        this.cache = cache;
+        this.executor = executor;
+    }
+
+    static ExecutorService newExecutor(int threads, int queueDepth) {
+        return newExecutor("YamlValidator", threads, queueDepth);
+    }
+
+    /**
+     * A pool of {@code threads} validating threads, holding at most {@code queueDepth} waiting tasks and
+     * rejecting the others. Values are validated in place on these threads, whatever their size.
+     */
+    static ExecutorService newExecutor(String name, int threads, int queueDepth) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueDepth),
+                new NamingThreadFactory(Worker::new, name),
+                new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Thread of a validating pool.
+     */
+    private static final class Worker extends Thread {
+        Worker(Runnable task) {
+            super(task);
+            setDaemon(true);
+        }
+    }
+
+    public static YamlValidator get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Check that {@code value} is valid YAML under the given mode and limits.
+     *
+     * @param limits effective limits, see {@link ValidationLimits#effective(ValidationLimits)}
+     */
+    public ValidationResult validate(String value, ValidationMode mode, ValidationLimits limits) {
+        return validate(value, mode, limits, null);
+    }
+
+    /**
+     * Check that {@code value} is valid YAML under the given mode and limits, and that it
+     * satisfies {@code schema}.
+     *
+     * @param limits effective limits, see {@link ValidationLimits#effective(ValidationLimits)}
+     * @param schema schema the document must match, or {@code null} for none
+     */
+    public ValidationResult validate(String value, ValidationMode mode, ValidationLimits limits, JsonSchema schema) {
+        return validate(value, mode, false, limits, schema);
+    }
+
+    /**
+     * Check that {@code value} is valid YAML under the given mode and limits, and that it
+     * satisfies {@code schema}, allowing a stream of several documents if {@code multiDocument}.
+     * The documents of a stream are checked one at a time, and the check stops at the first one
+     * that fails, which the result then {@link ValidationResult#getFailedDocument() points at}.
+     *
+     * @param limits effective limits, see {@link ValidationLimits#effective(ValidationLimits)}
+     * @param schema schema each document must match, or {@code null} for none
+     */
+    public ValidationResult validate(String value, ValidationMode mode, boolean multiDocument, ValidationLimits limits, JsonSchema schema) {
+        return validate(value, mode, multiDocument, limits, schema, false);
+    }
+
+    /**
+     * Like {@link #validate(String, ValidationMode, boolean, ValidationLimits, JsonSchema)}, but a result
+     * found in the cache is returned as a copy flagged as a {@link ValidationResult#isCacheHit() cache hit},
+     * for callers that report how a value was validated.
+     */
+    ValidationResult validateReportingHits(String value, ValidationMode mode, boolean multiDocument, ValidationLimits limits, JsonSchema schema) {
+        return validate(value, mode, multiDocument, limits, schema, true);
+    }
+
+    /**
+     * Like {@link #validateReportingHits(String, ValidationMode, boolean, ValidationLimits, JsonSchema)} for a
+     * multi-document value, but with each document {@link DocumentSplitter split} off and validated, and
+     * cached, on its own. When a value is checked again after an edit, only the documents that changed are
+     * parsed, the others are found in the cache. The limits on the whole stream are checked on the sums
+     * of the documents. The result is a cache hit if every document was.
+     */
+    ValidationResult validateDocuments(String value, ValidationMode mode, ValidationLimits limits, JsonSchema schema) {
+        String violation = value == null ? null : limits.prescan(value);
+        if (violation != null) {
+            ValidationResult vres = new ValidationResult();
+            vres.setResult(false);
+            vres.setOutcome(ValidationResult.Outcome.LIMIT_EXCEEDED);
+            vres.setError(violation);
+            return vres;
+        }
+        List<DocumentSplitter.Part> parts = value == null ? List.of() : DocumentSplitter.split(value);
+        if (parts.size() < 2) {
+            return validateReportingHits(value, mode, true, limits, schema);
+        }
+        int documents = 0;
+        int nodes = 0;
+        int maxDepth = 0;
+        int aliases = 0;
+        long parseNanos = 0;
+        boolean hits = true;
+        for (DocumentSplitter.Part part : parts) {
+            ValidationResult vres = validate(part.text(), mode, true, limits, schema, true);
+            hits &= vres.isCacheHit();
+            nodes += vres.getNodes();
+            maxDepth = Math.max(maxDepth, vres.getMaxDepth());
+            aliases += vres.getAliases();
+            parseNanos += vres.getParseNanos();
+            if (!vres.getResult()) {
+                return failedPart(vres, part, documents, nodes, maxDepth, aliases, parseNanos);
+            }
+            documents += vres.getDocuments();
+            String exceeded = null;
+            if (documents > ValidationLimits.unlimitedIfUnset(limits.getMaxDocuments())) {
+                exceeded = "stream exceeds the maximum of " + limits.getMaxDocuments() + " documents";
+            } else if (nodes > ValidationLimits.unlimitedIfUnset(limits.getMaxTotalNodes())) {
+                exceeded = "stream exceeds the maximum of " + limits.getMaxTotalNodes() + " nodes in total";
+            }
+            if (exceeded != null) {
+                ValidationResult total = new ValidationResult();
+                total.setResult(false);
+                total.setOutcome(ValidationResult.Outcome.LIMIT_EXCEEDED);
+                total.setError(exceeded);
+                total.setNodes(nodes);
+                total.setStatistics(documents, maxDepth, aliases, parseNanos);
+                failedAt(total, Math.min(documents, ValidationLimits.unlimitedIfUnset(limits.getMaxDocuments()) + 1));
+                return total;
+            }
+        }
+        ValidationResult total = new ValidationResult();
+        total.setResult(true);
+        total.setNodes(nodes);
+        total.setStatistics(documents, maxDepth, aliases, parseNanos);
+        return hits ? total.reused() : total;
+    }
+
+    /**
+     * Result for the whole stream of a part that failed, with its document and line numbers shifted past
+     * the {@code documents} before it.
+     */
+    private static ValidationResult failedPart(ValidationResult vres, DocumentSplitter.Part part, int documents,
+            int nodes, int maxDepth, int aliases, long parseNanos) {
+        ValidationResult total = new ValidationResult();
+        total.setResult(false);
+        total.setOutcome(vres.getOutcome());
+        String error = vres.getError();
+        if (error != null) {
+            String prefix = documentPrefix(vres.getFailedDocument());
+            if (vres.getFailedDocument() > 0 && error.startsWith(prefix)) {
+                error = error.substring(prefix.length());
+            }
+            error = shiftLines(error, part.line());
+        }
+        total.setError(error);
+        total.setNodes(nodes);
+        total.setStatistics(documents + vres.getDocuments(), maxDepth, aliases, parseNanos);
+        if (vres.getFailedDocument() > 0) {
+            failedAt(total, documents + vres.getFailedDocument());
+        }
+        return total;
+    }
+
+    /**
+     * Point a result just built at the document that failed, and name that document at the start of its error.
+     */
+    private static void failedAt(ValidationResult vres, int document) {
+        vres.setFailedDocument(document);
+        if (vres.getError() != null) {
+            vres.setError(documentPrefix(document) + vres.getError());
+        }
+    }
+
+    private static String documentPrefix(int document) {
+        return "document " + document + ": ";
+    }
+
+    /**
+     * Shift the line numbers of the positions in a SnakeYAML error by {@code lines}.
+     */
+    static String shiftLines(String error, int lines) {
+        if (lines == 0) {
+            return error;
+        }
+        Matcher m = MARK_LINE.matcher(error);
+        StringBuilder shifted = new StringBuilder();
+        while (m.find()) {
+            m.appendReplacement(shifted, m.group(1) + (Integer.parseInt(m.group(2)) + lines) + m.group(3));
+        }
+        m.appendTail(shifted);
+        return shifted.toString();
+    }
+
+    private ValidationResult validate(String value, ValidationMode mode, boolean multiDocument, ValidationLimits limits, JsonSchema schema, boolean reportHits) {
+        String settings = ValidationFingerprint.settings(mode, multiDocument, limits, schema);
+        String key = ValidationCache.key(settings, value);
+        ValidationResult vres = cache.lookup(key);
+        if (vres != null) {
+            return reportHits ? vres.reused() : vres;
+        }
+        if (key == null) {
+            return validateUncached(value, mode, multiDocument, limits, schema);
+        }
+        CompletableFuture<ValidationResult> flight = new CompletableFuture<>();
+        CompletableFuture<ValidationResult> leader = inFlight.putIfAbsent(key, flight);
+        if (leader != null) {
+            return await(leader, limits);
+        }
+        try {
+            vres = validateUncached(value, mode, multiDocument, limits, schema);
+            if (vres.getOutcome() != ValidationResult.Outcome.TIMEOUT) {
+                cache.store(key, vres);
+            }
+            flight.complete(vres);
+            return vres;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    private ValidationResult validateUncached(String value, ValidationMode mode, boolean multiDocument, ValidationLimits limits, JsonSchema schema) {
+        long start = System.nanoTime();
+        if (executor == null || value == null || value.length() < INLINE_THRESHOLD || Thread.currentThread() instanceof Worker) {
+            return check(value, mode, multiDocument, limits, schema, start);
+        }
+        return checkOffThread(value, mode, multiDocument, limits, schema, start);
+    }
+
+    /**
+     * Wait for the same validation running on another thread, within the deadline of the limits.
+     */
+    private static ValidationResult await(Future<ValidationResult> future, ValidationLimits limits) {
+        Integer timeout = limits.getTimeoutMillis();
+        try {
+            return ValidationLimits.isSet(timeout) ? future.get(timeout, TimeUnit.MILLISECONDS) : future.get();
+        } catch (TimeoutException e) {
+            return timedOut("validation did not complete within " + timeout + " ms");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return timedOut("validation was interrupted");
+        } catch (ExecutionException e) {
+            ValidationResult vres = new ValidationResult();
+            vres.setResult(false);
+            vres.setError(e.getCause().toString());
+            return vres;
+        }
+    }
+
+    /**
+     * Number of distinct validations currently running.
+     */
+    int getInFlight() {
+        return inFlight.size();
+    }
+
+    private ValidationResult checkOffThread(String value, ValidationMode mode, boolean multiDocument, ValidationLimits limits, JsonSchema schema, long start) {
+        Future<ValidationResult> future;
+        try {
+            future = executor.submit(() -> check(value, mode, multiDocument, limits, schema, start));
+        } catch (RejectedExecutionException e) {
+            return timedOut("too many YAML validations in progress, try again later");
+        }
+        ValidationResult vres = await(future, limits);
+        if (vres.getOutcome() == ValidationResult.Outcome.TIMEOUT) {
+            future.cancel(true);
+        }
+        return vres;
+    }
+
+    /**
+     * Validate on the current thread, giving up once the deadline of the limits has passed.
+     *
+     * @param start {@link System#nanoTime()} at which the deadline started running
+     */
+    ValidationResult check(String value, ValidationMode mode, ValidationLimits limits, JsonSchema schema, long start) {
+        return check(value, mode, false, limits, schema, start);
+    }
+
+    ValidationResult check(String value, ValidationMode mode, boolean multiDocument, ValidationLimits limits, JsonSchema schema, long start) {
+        return check(() -> {
+            String violation = limits.prescan(value);
+            if (violation != null) {
+                throw new LimitExceededException(violation);
+            }
+            return new StringReader(value);
+        }, mode, multiDocument, limits, schema, start);
+    }
+
+    /**
+     * Check that the YAML read from {@code source} is valid, on the current thread and without
+     * holding the whole text: only the parser's own state and, unless the mode only parses, the
+     * document being checked are kept. Nothing is cached, since there is no text to key it by,
+     * and {@code source} is not closed. The size limits are left to the source, see
+     * {@link ValueSpool}.
+     *
+     * @param limits effective limits, see {@link ValidationLimits#effective(ValidationLimits)}
+     * @param schema schema each document must match, or {@code null} for none
+     */
+    ValidationResult validate(Reader source, ValidationMode mode, boolean multiDocument, ValidationLimits limits, JsonSchema schema) {
+        return check(() -> source, mode, multiDocument, limits, schema, System.nanoTime());
+    }
+
+    private ValidationResult check(Supplier<Reader> source, ValidationMode mode, boolean multiDocument, ValidationLimits limits, JsonSchema schema, long start) {
+        ValidationResult vres = new ValidationResult();
+        GuardedParser parser = null;
+        long parseStart = System.nanoTime();
+        try {
+            Pipeline p = pipeline.get();
+            parser = p.open(source.get(), limits, start);
+            if (multiDocument) {
+                List<String> violations = p.checkDocuments(parser, limits, mode, schema);
+                if (!violations.isEmpty()) {
+                    vres.setResult(false);
+                    vres.setOutcome(ValidationResult.Outcome.SCHEMA_VIOLATION);
+                    vres.setError(String.join("; ", violations));
+                    return vres;
+                }
+            } else if (schema == null) {
+                mode.check(p, parser, limits);
+            } else {
+                ValidationMode composing = mode == ValidationMode.PARSE ? ValidationMode.COMPOSE : mode;
+                List<String> violations = schema.validate(composing.check(p, parser, limits), p::constructScalar, parser::checkDeadline);
+                if (!violations.isEmpty()) {
+                    vres.setResult(false);
+                    vres.setOutcome(ValidationResult.Outcome.SCHEMA_VIOLATION);
+                    vres.setError(String.join("; ", violations));
+                    return vres;
+                }
+            }
+            vres.setResult(true);
+        } catch (LimitExceededException e) {
+            vres.setResult(false);
+            vres.setOutcome(ValidationResult.Outcome.LIMIT_EXCEEDED);
+            vres.setError(e.getMessage());
+        } catch (ValidationTimeoutException e) {
+            vres = timedOut(e.getMessage());
+        } catch (Exception e) {
+            vres.setResult(false);
+            vres.setError(e.toString());
+        } finally {
+            if (parser != null) {
+                vres.setNodes(parser.getNodes());
+                vres.setStatistics(parser.getDocuments(), parser.getMaxDepth(), parser.getAliases(), System.nanoTime() - parseStart);
+                if (multiDocument && !vres.getResult()) {
+                    failedAt(vres, Math.max(1, parser.getDocuments()));
+                }
+            }
+        }
+        return vres;
+    }
+
+    /**
+     * Parse {@code value} into a compact {@link YamlTree} on the current thread, under the same limits as a validation.
+     *
+     * @throws YAMLException if the value is invalid or exceeds the limits
+     */
+    public YamlTree loadTree(String value, ValidationLimits limits) {
+        return loadTree(value, false, limits);
+    }
+
+    /**
+     * Like {@link #loadTree(String, ValidationLimits)}, for a value that may hold several documents
+     * if {@code multiDocument} is set.
+     */
+    public YamlTree loadTree(String value, boolean multiDocument, ValidationLimits limits) {
+        String violation = limits.prescan(value);
+        if (violation != null) {
+            throw new LimitExceededException(violation);
+        }
+        Pipeline p = pipeline.get();
+        YamlTree tree = YamlTree.build(value, p.open(value, limits), p.resolver, multiDocument);
+        ExpansionEstimator.check(tree.getNodeCount(), tree.expandedSize(), limits);
+        return tree;
+    }
+
+    /**
+     * Read the exported paths out of {@code value} on the current thread, under the same limits as a validation.
+     *
+     * @throws YAMLException if the value is invalid up to the point where every path was found, or exceeds the limits
+     */
+    public Map<String, String> extract(String value, ValidationLimits limits, PathExtractor paths) {
+        return extract(value, false, limits, paths);
+    }
+
+    /**
+     * Like {@link #extract(String, ValidationLimits, PathExtractor)}, for a value that may hold several
+     * documents if {@code multiDocument} is set, see {@link PathExtractor#extract(Parser, boolean)}.
+     */
+    public Map<String, String> extract(String value, boolean multiDocument, ValidationLimits limits, PathExtractor paths) {
+        if (value == null || paths.isEmpty()) {
+            return Map.of();
+        }
+        String violation = limits.prescan(value);
+        if (violation != null) {
+            throw new LimitExceededException(violation);
+        }
+        return paths.extract(pipeline.get().open(value, limits), multiDocument);
+    }
+
+    /**
+     * Construct the Java value of a scalar of one of the YAML core schema types.
+     */
+    Object constructScalar(Tag tag, String value) {
+        return pipeline.get().constructScalar(new ScalarNode(tag, value, null, null, DumperOptions.ScalarStyle.PLAIN));
+    }
+
+    private static ValidationResult timedOut(String error) {
+        ValidationResult vres = new ValidationResult();
+        vres.setResult(false);
+        vres.setOutcome(ValidationResult.Outcome.TIMEOUT);
+        vres.setError(error);
+        return vres;
+    }
+
+    /**
+     * Per-thread SnakeYAML infrastructure.
+     */
+    static final class Pipeline {
+
+        private final Resolver resolver = new Resolver();
+        private final NodeConstructor constructor = new NodeConstructor(new LoaderOptions());
+
+        GuardedParser open(String value, ValidationLimits limits) {
+            return open(value, limits, System.nanoTime());
+        }
+
+        GuardedParser open(String value, ValidationLimits limits, long start) {
+            return open(new StringReader(value), limits, start);
+        }
+
+        GuardedParser open(Reader source, ValidationLimits limits, long start) {
+            return new GuardedParser(new ParserImpl(new StreamReader(source), limits.toLoaderOptions()), limits, start);
+        }
+
+        Node compose(GuardedParser parser, ValidationLimits limits) {
+            Node node = new Composer(parser, resolver, limits.toLoaderOptions()).getSingleNode();
+            ExpansionEstimator.check(node, limits);
+            return node;
+        }
+
+        Object construct(Node node) {
+            return node == null ? null : constructor.construct(node);
+        }
+
+        /**
+         * Check the documents of a stream one at a time, each under {@code mode}, and against
+         * {@code schema} if there is one. Only one document is held at a time, and the check stops
+         * at the first document that fails, which is then the last one the parser started.
+         *
+         * @return the schema violations of the first document with any, empty if there are none
+         */
+        List<String> checkDocuments(GuardedParser parser, ValidationLimits limits, ValidationMode mode, JsonSchema schema) {
+            if (mode == ValidationMode.PARSE && schema == null) {
+                while (!parser.checkEvent(Event.ID.StreamEnd)) {
+                    parser.getEvent();
+                }
+                parser.getEvent();
+                return List.of();
+            }
+            while (true) {
+                // a composer per document, so that SnakeYAML's own alias limit also applies per document
+                Composer composer = new Composer(parser, resolver, limits.toLoaderOptions());
+                if (!composer.checkNode()) {
+                    return List.of();
+                }
+                Node node = composer.getNode();
+                ExpansionEstimator.check(node, limits);
+                if (mode == ValidationMode.CONSTRUCT) {
+                    construct(node);
+                }
+                if (schema != null) {
+                    List<String> violations = schema.validate(node, this::constructScalar, parser::checkDeadline);
+                    if (!violations.isEmpty()) {
+                        return violations;
+                    }
+                }
+            }
+        }
+
+        Object constructScalar(ScalarNode node) {
+            return constructor.construct(node);
+        }
+    }
+
+    private static final class NodeConstructor extends SafeConstructor {
+
+        NodeConstructor(LoaderOptions options) {
+            super(options);
+        }
+
+        Object construct(Node node) {
+            return constructDocument(node);
+        }
+    }
+}
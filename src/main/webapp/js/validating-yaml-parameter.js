@@ -0,0 +1,181 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 csanchez.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+/*
+ * Build form support for validating YAML parameters.
+ *
+ * While the user types, the value is checked locally, debounced, and in a Web Worker once it
+ * is large enough to make the page sluggish. The server, which also knows about schemas and
+ * resource limits, is only asked when the field loses focus, and not at all while a local
+ * error is shown.
+ */
+(function () {
+    "use strict";
+
+    var DEBOUNCE_MILLIS = 300;
+    var WORKER_THRESHOLD = 64 * 1024;
+
+    var worker = null;
+    var workerFailed = false;
+    var pending = {};
+    var nextId = 0;
+
+    function lintInWorker(url, text, callback) {
+        if (worker === null && !workerFailed) {
+            try {
+                worker = new Worker(url);
+                worker.onmessage = function (event) {
+                    var cb = pending[event.data.id];
+                    delete pending[event.data.id];
+                    if (cb) {
+                        cb(event.data.error);
+                    }
+                };
+            } catch (e) {
+                workerFailed = true;
+            }
+        }
+        if (worker === null) {
+            callback(ValidatingYamlParameterLint.lint(text));
+            return;
+        }
+        var id = nextId++;
+        pending[id] = callback;
+        worker.postMessage({ id: id, text: text });
+    }
+
+    function attach(container) {
+        var textarea = container.querySelector("textarea[name='value']");
+        var message = container.querySelector(".validating-yaml-parameter-message");
+        var nameInput = container.querySelector("input[name='name']");
+        var timer = null;
+        var generation = 0;
+        var linted = null;
+        var localError = null;
+        var lastChecked = null;
+
+        function value() {
+            var cm = textarea.codemirrorObject;
+            return cm ? cm.getValue() : textarea.value;
+        }
+
+        function show(html, isError) {
+            message.innerHTML = html;
+            message.className = "validating-yaml-parameter-message" + (isError ? " error" : "");
+        }
+
+        function showText(text) {
+            var div = document.createElement("div");
+            div.className = "error";
+            div.textContent = text;
+            message.className = "validating-yaml-parameter-message";
+            message.replaceChildren(div);
+        }
+
+        // large values are checked in the worker, and the last result is reused until the text changes
+        function lint(text, callback) {
+            if (text === linted) {
+                callback(localError);
+                return;
+            }
+            var done = function (error) {
+                linted = text;
+                localError = error;
+                callback(error);
+            };
+            if (text.length >= WORKER_THRESHOLD && typeof Worker !== "undefined") {
+                lintInWorker(container.dataset.workerUrl, text, done);
+            } else {
+                done(ValidatingYamlParameterLint.lint(text));
+            }
+        }
+
+        function lintNow() {
+            var text = value();
+            var current = ++generation;
+            lint(text, function (error) {
+                if (current !== generation) {
+                    return;
+                }
+                if (error) {
+                    showText(error.message);
+                } else {
+                    show("", false);
+                }
+            });
+        }
+
+        function onEdit() {
+            clearTimeout(timer);
+            timer = setTimeout(lintNow, DEBOUNCE_MILLIS);
+        }
+
+        function validateOnServer() {
+            clearTimeout(timer);
+            var text = value();
+            if (text === lastChecked) {
+                return;
+            }
+            var current = ++generation;
+            lint(text, function (local) {
+                if (current !== generation) {
+                    return;
+                }
+                if (local) {
+                    showText(local.message);
+                    return;
+                }
+                lastChecked = text;
+                var body = new URLSearchParams();
+                body.append("value", text);
+                body.append("name", nameInput ? nameInput.value : "");
+                fetch(container.dataset.validateUrl, {
+                    method: "post",
+                    headers: crumb.wrap({ "Content-Type": "application/x-www-form-urlencoded" }),
+                    body: body
+                }).then(function (rsp) {
+                    return rsp.ok ? rsp.text() : "";
+                }).then(function (html) {
+                    if (text === value()) {
+                        show(html, false);
+                    }
+                });
+            });
+        }
+
+        textarea.addEventListener("input", onEdit);
+        textarea.addEventListener("blur", validateOnServer);
+        // CodeMirror replaces the textarea once its own behaviour has run
+        setTimeout(function () {
+            var cm = textarea.codemirrorObject;
+            if (cm) {
+                cm.on("change", onEdit);
+                cm.on("blur", validateOnServer);
+            }
+        }, 0);
+        lintNow();
+    }
+
+    Behaviour.specify(".validating-yaml-parameter", "validating-yaml-parameter", 1000, attach);
+})();
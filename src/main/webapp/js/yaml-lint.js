@@ -0,0 +1,217 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 csanchez.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+/*
+ * Structural YAML checks that run in the browser, in the page or in a Web Worker.
+ *
+ * This is not a YAML parser: it only finds the mistakes that are cheap to detect in a single
+ * linear pass (tabs used for indentation, unterminated quoted scalars and unbalanced flow
+ * brackets) and reports the first one. It errs on the side of silence, since the server
+ * remains the authority on whether a value is valid.
+ */
+(function (global) {
+    "use strict";
+
+    var CLOSING = { "[": "]", "{": "}" };
+
+    function error(line, message) {
+        return { line: line, message: "line " + line + ": " + message };
+    }
+
+    function indentation(text, start) {
+        var i = start;
+        while (text.charAt(i) === " " || text.charAt(i) === "\t") {
+            i++;
+        }
+        return i - start;
+    }
+
+    function lint(text) {
+        var length = text.length;
+        var line = 1;
+        var lineStart = 0;
+        var flow = [];
+        var quote = null;
+        var quoteLine = 0;
+        var blockScalarIndent = -1;
+        var valueStart = true;
+        var i = indentation(text, 0);
+
+        if (text.substring(0, i).indexOf("\t") >= 0 && /[^\s#]/.test(text.charAt(i))) {
+            return error(line, "tab characters cannot be used for indentation");
+        }
+
+        while (i < length) {
+            var c = text.charAt(i);
+
+            if (c === "\n") {
+                if (quote === null && flow.length === 0) {
+                    valueStart = true;
+                }
+                line++;
+                i++;
+                lineStart = i;
+                if (blockScalarIndent >= 0) {
+                    // skip the content of a literal or folded scalar
+                    while (i < length) {
+                        var end = text.indexOf("\n", i);
+                        if (end < 0) {
+                            end = length;
+                        }
+                        var indent = 0;
+                        while (text.charAt(i + indent) === " ") {
+                            indent++;
+                        }
+                        if (i + indent < end && indent <= blockScalarIndent) {
+                            break;
+                        }
+                        i = Math.min(end + 1, length);
+                        if (end < length) {
+                            line++;
+                        }
+                        lineStart = i;
+                    }
+                    blockScalarIndent = -1;
+                }
+                if (quote === null && flow.length === 0 && i < length) {
+                    var ws = indentation(text, i);
+                    var first = text.charAt(i + ws);
+                    if (text.substring(i, i + ws).indexOf("\t") >= 0 && first !== "\n" && first !== "#" && first !== "") {
+                        return error(line, "tab characters cannot be used for indentation");
+                    }
+                    i += ws;
+                }
+                continue;
+            }
+
+            if (quote === "'") {
+                if (c === "'") {
+                    if (text.charAt(i + 1) === "'") {
+                        i += 2;
+                        continue;
+                    }
+                    quote = null;
+                }
+                i++;
+                continue;
+            }
+            if (quote === "\"") {
+                if (c === "\\") {
+                    i += 2;
+                    continue;
+                }
+                if (c === "\"") {
+                    quote = null;
+                }
+                i++;
+                continue;
+            }
+
+            var precededBySpace = i === lineStart || /\s/.test(text.charAt(i - 1));
+
+            if (c === "#" && precededBySpace) {
+                var eol = text.indexOf("\n", i);
+                i = eol < 0 ? length : eol;
+                continue;
+            }
+
+            if (flow.length > 0) {
+                if (c === "[" || c === "{") {
+                    flow.push({ bracket: c, line: line });
+                } else if (c === "]" || c === "}") {
+                    var open = flow.pop();
+                    if (CLOSING[open.bracket] !== c) {
+                        return error(line, "'" + c + "' does not close the '" + open.bracket + "' opened on line " + open.line);
+                    }
+                    if (flow.length === 0) {
+                        valueStart = false;
+                    }
+                } else if ((c === "'" || c === "\"") && (precededBySpace || /[\[{,:]/.test(text.charAt(i - 1)))) {
+                    quote = c;
+                    quoteLine = line;
+                }
+                i++;
+                continue;
+            }
+
+            if (c === " " || c === "\t") {
+                i++;
+                continue;
+            }
+
+            if (valueStart) {
+                if (c === "-" && /\s|^$/.test(text.charAt(i + 1))) {
+                    i++;
+                    continue;
+                }
+                if (c === "?" && /\s|^$/.test(text.charAt(i + 1))) {
+                    i++;
+                    continue;
+                }
+                if (c === "[" || c === "{") {
+                    flow.push({ bracket: c, line: line });
+                    i++;
+                    continue;
+                }
+                if (c === "]" || c === "}") {
+                    return error(line, "'" + c + "' has no matching opening bracket");
+                }
+                if (c === "'" || c === "\"") {
+                    quote = c;
+                    quoteLine = line;
+                    valueStart = false;
+                    i++;
+                    continue;
+                }
+                if ((c === "|" || c === ">") && /^[|>][-+0-9]*\s*(#.*)?$/.test(text.substring(i, lineEnd(text, i)))) {
+                    blockScalarIndent = indentation(text, lineStart);
+                    i = lineEnd(text, i);
+                    continue;
+                }
+                valueStart = false;
+            }
+
+            if (c === ":" && /\s|^$/.test(text.charAt(i + 1))) {
+                valueStart = true;
+            }
+            i++;
+        }
+
+        if (quote !== null) {
+            return error(quoteLine, "quoted string is not terminated");
+        }
+        if (flow.length > 0) {
+            var unclosed = flow.pop();
+            return error(unclosed.line, "'" + unclosed.bracket + "' is never closed");
+        }
+        return null;
+    }
+
+    function lineEnd(text, from) {
+        var end = text.indexOf("\n", from);
+        return end < 0 ? text.length : end;
+    }
+
+    global.ValidatingYamlParameterLint = { lint: lint };
+})(typeof self !== "undefined" ? self : this);
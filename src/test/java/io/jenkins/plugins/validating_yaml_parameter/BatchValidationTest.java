@@ -0,0 +1,109 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 csanchez.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.jenkins.plugins.validating_yaml_parameter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import net.sf.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author csanchez
+ */
+class BatchValidationTest {
+
+    @Test
+    void testValuesAreReadAsSent() {
+        assertEquals(List.of("a: 1", "null", "{\"b\": [2]}", "multi\nline"),
+                BatchValidation.readValues(new StringReader("[\"a: 1\", \"null\", \"{\\\"b\\\": [2]}\", \"multi\\nline\"]")));
+        assertEquals(List.of(), BatchValidation.readValues(new StringReader("[]")));
+    }
+
+    @Test
+    void testOnlyArraysOfStringsAreAccepted() {
+        assertThrows(IllegalArgumentException.class, () -> BatchValidation.readValues(new StringReader("")));
+        assertThrows(IllegalArgumentException.class, () -> BatchValidation.readValues(new StringReader("{\"a\": \"b\"}")));
+        assertThrows(IllegalArgumentException.class, () -> BatchValidation.readValues(new StringReader("[\"a\", 1]")));
+        assertThrows(IllegalArgumentException.class, () -> BatchValidation.readValues(new StringReader("[\"a\", [\"b\"]]")));
+        assertThrows(IllegalArgumentException.class, () -> BatchValidation.readValues(new StringReader("[\"a\"")));
+        assertThrows(IllegalArgumentException.class, () -> BatchValidation.readValues(new StringReader("[\"a\"]\n---\n[]")));
+    }
+
+    @Test
+    void testResultsKeepTheOrderOfTheValues() throws Exception {
+        ValidatingYamlParameterDefinition d = new ValidatingYamlParameterDefinition("DUMMY", "a: 1", "error", "description");
+        d.setSchema("{type: object, required: [kind]}");
+        List<String> values = List.of("kind: A", "kind: : B", "name: C", "kind: D");
+        List<Future<ValidationResult>> tasks = BatchValidation.submit(d, values, "job");
+        assertEquals(4, tasks.size());
+        assertTrue(tasks.get(0).get().getResult());
+        assertEquals(ValidationResult.Outcome.INVALID, tasks.get(1).get().getOutcome());
+        assertEquals(ValidationResult.Outcome.SCHEMA_VIOLATION, tasks.get(2).get().getOutcome());
+        assertTrue(tasks.get(3).get().getResult());
+
+        JSONObject json = BatchValidation.toJSON(2, tasks.get(2).get());
+        assertEquals(2, json.get("index"));
+        assertEquals(false, json.get("valid"));
+        assertEquals("SCHEMA_VIOLATION", json.get("outcome"));
+        assertFalse(json.containsKey("failedDocument"));
+    }
+
+    @Test
+    void testValidationsAreCancelledWhenTheClientGoesAway() {
+        ValidationResult valid = new ValidationResult();
+        valid.setResult(true);
+        FutureTask<ValidationResult> pending = new FutureTask<>(() -> valid);
+        StringWriter out = new StringWriter() {
+            @Override
+            public void flush() {
+                throw new IllegalStateException("gone");
+            }
+        };
+        assertThrows(IllegalStateException.class, () -> BatchValidation.write(List.of(CompletableFuture.completedFuture(valid), pending), out));
+        assertTrue(pending.isCancelled());
+    }
+
+    @Test
+    void testValidationsThatDoNotCompleteAreInvalid() {
+        CompletableFuture<ValidationResult> cancelled = new CompletableFuture<>();
+        cancelled.cancel(true);
+        assertFalse(BatchValidation.join(cancelled).getResult());
+        assertEquals("validation was cancelled", BatchValidation.join(cancelled).getError());
+
+        CompletableFuture<ValidationResult> failed = CompletableFuture.failedFuture(new IOException("broken"));
+        assertFalse(BatchValidation.join(failed).getResult());
+        assertEquals("java.io.IOException: broken", BatchValidation.join(failed).getError());
+    }
+}
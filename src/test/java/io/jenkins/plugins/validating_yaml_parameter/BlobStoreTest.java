@@ -0,0 +1,68 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 csanchez.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.jenkins.plugins.validating_yaml_parameter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author csanchez
+ */
+class BlobStoreTest {
+
+    @Test
+    void testReferencesAreCounted() throws Exception {
+        File dir = Files.createTempDirectory("blobs").toFile();
+        String digest = BlobStore.digestOf("a: 1");
+        BlobStore.store(dir, digest, () -> "a: 1", "1");
+        BlobStore.store(dir, digest, () -> { throw new AssertionError("already stored"); }, "2");
+        BlobStore.store(dir, digest, () -> "a: 1", "2");
+        assertEquals(2, BlobStore.getReferences(dir, digest));
+        assertEquals("a: 1", BlobStore.read(dir, digest));
+
+        BlobStore.release(dir, digest, "2");
+        BlobStore.release(dir, digest, "2");
+        assertTrue(BlobStore.blob(dir, digest).exists());
+        BlobStore.release(dir, digest, "1");
+        assertFalse(BlobStore.blob(dir, digest).exists());
+        assertEquals(0, BlobStore.getReferences(dir, digest));
+        assertThrows(IOException.class, () -> BlobStore.read(dir, digest));
+    }
+
+    @Test
+    void testCorruptBlobIsRejected() throws Exception {
+        File dir = Files.createTempDirectory("blobs").toFile();
+        String digest = BlobStore.digestOf("a: 1");
+        BlobStore.store(dir, digest, () -> "a: 2", "1");
+        assertThrows(IOException.class, () -> BlobStore.read(dir, digest));
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 csanchez.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.jenkins.plugins.validating_yaml_parameter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author csanchez
+ */
+class DocumentSplitterTest {
+
+    @Test
+    void testSplitAtDocumentStart() {
+        assertEquals(List.of(new DocumentSplitter.Part(0, "a: 1\n"), new DocumentSplitter.Part(1, "---\nb: 2\n"), new DocumentSplitter.Part(3, "--- c\n")),
+                DocumentSplitter.split("a: 1\n---\nb: 2\n--- c\n"));
+    }
+
+    @Test
+    void testDirectivesAndCommentsStayWithTheirDocument() {
+        assertEquals(List.of(new DocumentSplitter.Part(0, "# first\n---\na: 1\n...\n"), new DocumentSplitter.Part(4, "%YAML 1.1\n# second\n---\nb: 2\n")),
+                DocumentSplitter.split("# first\n---\na: 1\n...\n%YAML 1.1\n# second\n---\nb: 2\n"));
+    }
+
+    @Test
+    void testMarkersMustStartTheLine() {
+        assertEquals(List.of(new DocumentSplitter.Part(0, "a: |\n  ---\nb: ---\n----\n")),
+                DocumentSplitter.split("a: |\n  ---\nb: ---\n----\n"));
+        assertEquals(List.of(new DocumentSplitter.Part(0, "\uFEFF---\na: 1\r\n"), new DocumentSplitter.Part(2, "---\r\nb: 2")),
+                DocumentSplitter.split("\uFEFF---\na: 1\r\n---\r\nb: 2"));
+        assertEquals(List.of(new DocumentSplitter.Part(0, "")), DocumentSplitter.split(""));
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 csanchez.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.jenkins.plugins.validating_yaml_parameter;
+
+import org.junit.jupiter.api.Test;
+import org.yaml.snakeyaml.nodes.Node;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author csanchez
+ */
+class ExpansionEstimatorTest {
+
+    private static final ValidationLimits NO_ALIAS_LIMIT = ValidationLimits.DEFAULTS.overriddenBy(new ValidationLimits(null, null, null, null, 0));
+
+    private static Node compose(String yaml) {
+        YamlValidator.Pipeline pipeline = new YamlValidator.Pipeline();
+        ValidationLimits limits = NO_ALIAS_LIMIT.overriddenBy(new ValidationLimits());
+        limits.setMaxExpansionFactor(0);
+        return pipeline.compose(pipeline.open(yaml, limits), limits);
+    }
+
+    private static String bomb(int levels, int fanOut) {
+        StringBuilder sb = new StringBuilder("l0: &l0 [x]\n");
+        for (int level = 1; level <= levels; level++) {
+            sb.append('l').append(level).append(": &l").append(level).append(" [");
+            for (int i = 0; i < fanOut; i++) {
+                sb.append(i == 0 ? "" : ", ").append("*l").append(level - 1);
+            }
+            sb.append("]\n");
+        }
+        return sb.toString();
+    }
+
+    @Test
+    void testTreeWithoutAliases() {
+        ExpansionEstimator estimator = new ExpansionEstimator();
+        assertEquals(7, estimator.expandedSize(compose("a: [1, 2]\nb: c\n")));
+        assertEquals(7, estimator.getDistinctNodes());
+    }
+
+    @Test
+    void testAliasesAreCountedOncePerReference() {
+        ExpansionEstimator estimator = new ExpansionEstimator();
+        // the anchored sequence of 3 nodes is referenced twice more
+        assertEquals(13, estimator.expandedSize(compose("a: &x [1, 2]\nb: *x\nc: *x\n")));
+        assertEquals(7, estimator.getDistinctNodes());
+    }
+
+    @Test
+    void testRecursiveDocumentTerminates() {
+        ExpansionEstimator estimator = new ExpansionEstimator();
+        assertEquals(3, estimator.expandedSize(compose("&a [*a, 1]")));
+    }
+
+    @Test
+    void testBillionLaughsIsRejectedWithoutExpansion() {
+        YamlValidator validator = new YamlValidator(new ValidationCache(0, 0));
+        ValidationResult vres = validator.validate(bomb(9, 10), ValidationMode.CONSTRUCT, NO_ALIAS_LIMIT);
+        assertEquals(ValidationResult.Outcome.LIMIT_EXCEEDED, vres.getOutcome());
+        assertTrue(vres.getError().contains("exceeding the maximum expansion factor of 100"), vres.getError());
+    }
+
+    @Test
+    void testModerateAliasUseIsAccepted() {
+        YamlValidator validator = new YamlValidator(new ValidationCache(0, 0));
+        for (ValidationMode mode : ValidationMode.values()) {
+            assertTrue(validator.validate(bomb(2, 10), mode, NO_ALIAS_LIMIT).getResult(), mode.name());
+        }
+    }
+
+    @Test
+    void testDisabledFactor() {
+        ValidationLimits limits = NO_ALIAS_LIMIT.overriddenBy(new ValidationLimits());
+        limits.setMaxExpansionFactor(0);
+        YamlValidator validator = new YamlValidator(new ValidationCache(0, 0));
+        assertTrue(validator.validate(bomb(9, 10), ValidationMode.COMPOSE, limits).getResult());
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 csanchez.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.jenkins.plugins.validating_yaml_parameter;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author csanchez
+ */
+class JsonSchemaTest {
+
+    private static final String SCHEMA = """
+            type: object
+            required: [image]
+            additionalProperties: false
+            properties:
+              image:
+                type: object
+                required: [name]
+                properties:
+                  name: {type: string, pattern: "^[a-z/]+$"}
+                  tag: {type: string, maxLength: 8}
+              replicas: {type: integer, minimum: 1, maximum: 10}
+              env:
+                type: array
+                items: {$ref: "#/$defs/variable"}
+              mode: {enum: [fast, safe]}
+            $defs:
+              variable:
+                type: object
+                required: [name]
+            """;
+
+    private static List<String> validate(String schema, String yaml) {
+        YamlValidator.Pipeline pipeline = new YamlValidator.Pipeline();
+        return JsonSchema.compile(schema).validate(pipeline.compose(pipeline.open(yaml, ValidationLimits.DEFAULTS), ValidationLimits.DEFAULTS),
+                pipeline::constructScalar);
+    }
+
+    @Test
+    void testValidDocument() {
+        assertEquals(List.of(), validate(SCHEMA, "image: {name: library/nginx, tag: '1.25'}\nreplicas: 3\nenv: [{name: A}]\nmode: safe\n"));
+    }
+
+    @Test
+    void testViolationsNameThePath() {
+        assertEquals(List.of("$.image.tag: expected string but found integer"), validate(SCHEMA, "image: {name: nginx, tag: 125}\n"));
+        assertEquals(List.of("$: missing required property 'image'"), validate(SCHEMA, "replicas: 3\n"));
+        assertEquals(List.of("$.env[1]: missing required property 'name'"), validate(SCHEMA, "image: {name: nginx}\nenv: [{name: A}, {value: b}]\n"));
+        assertEquals(List.of("$.extra: property is not allowed"), validate(SCHEMA, "image: {name: nginx}\nextra: 1\n"));
+    }
+
+    @Test
+    void testScalarKeywords() {
+        assertEquals(List.of("$.replicas: value must be at most 10"), validate(SCHEMA, "image: {name: nginx}\nreplicas: 0x20\n"));
+        assertEquals(List.of("$.image.name: value does not match pattern ^[a-z/]+$"), validate(SCHEMA, "image: {name: NGINX}\n"));
+        assertEquals(List.of("$.image.tag: expected at most 8 characters"), validate(SCHEMA, "image: {name: nginx, tag: '123456789'}\n"));
+        assertEquals(List.of("$.mode: value is not one of [fast, safe]"), validate(SCHEMA, "image: {name: nginx}\nmode: slow\n"));
+    }
+
+    @Test
+    void testNumbersCompareByValue() {
+        assertEquals(List.of(), validate("{enum: [1, 2.5]}", "1"));
+        assertEquals(List.of(), validate("{enum: [1, 2.5]}", "2.50"));
+        assertEquals(List.of(), validate("{type: number}", "3"));
+        assertEquals(1, validate("{type: integer}", "3.5").size());
+    }
+
+    @Test
+    void testMergeKeysAreFlattened() {
+        String schema = "{type: object, properties: {a: {type: integer}, b: {type: integer}}, additionalProperties: false}";
+        assertEquals(List.of(), validate("{properties: {base: {}, child: " + schema + "}}", "base: &b {a: 1}\nchild:\n  <<: *b\n  b: 2\n"));
+    }
+
+    @Test
+    void testCombinators() {
+        String schema = "{oneOf: [{type: string}, {type: integer}], not: {const: 0}}";
+        assertEquals(List.of(), validate(schema, "x"));
+        assertEquals(List.of("$: value matches a schema it must not match"), validate(schema, "0"));
+        assertEquals(List.of("$: value matches 0 of the schemas instead of exactly one"), validate(schema, "[1]"));
+        assertEquals(List.of(), validate("{anyOf: [{type: 'null'}, {minimum: 3}]}", ""));
+    }
+
+    @Test
+    void testCompiledSchemasAreShared() {
+        assertSame(JsonSchema.compile(SCHEMA), JsonSchema.compile(SCHEMA));
+        assertNotEquals(JsonSchema.compile(SCHEMA).getDigest(), JsonSchema.compile("{type: object}").getDigest());
+    }
+
+    @Test
+    void testInvalidSchemas() {
+        assertThrows(IllegalArgumentException.class, () -> JsonSchema.compile("{pattern: '['}"));
+        assertThrows(IllegalArgumentException.class, () -> JsonSchema.compile("{$ref: '#/$defs/missing'}"));
+        assertThrows(IllegalArgumentException.class, () -> JsonSchema.compile("[1, 2]"));
+        assertThrows(IllegalArgumentException.class, () -> JsonSchema.compile("{a: [}"));
+    }
+
+    @Test
+    void testSelfReferentialSchemasAreTurnedDown() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> JsonSchema.compile("&a {properties: {x: *a}}"));
+        assertEquals("recursive schema at #/properties/x", e.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> JsonSchema.compile("{allOf: [&a {not: *a}]}"));
+        // shared but not recursive
+        assertEquals(List.of("$.y: expected integer but found string"), validate("{properties: {x: &a {type: integer}, y: *a}}", "x: 1\ny: b\n"));
+    }
+
+    @Test
+    void testRecursiveValuesAreReportedNotWalked() {
+        String recursive = "$: value refers to itself through an alias and cannot be checked against a schema";
+        assertEquals(List.of(recursive), validate("{enum: [1]}", "a: &x [*x]\n"));
+        assertEquals(List.of(recursive), validate("{properties: {a: {const: 1}}}", "a: &x [*x]\n"));
+        assertEquals(List.of(recursive), validate("{properties: {a: {uniqueItems: true}}}", "a: &x [*x, *x]\n"));
+        assertEquals(List.of(recursive), validate("{$defs: {node: {type: array, items: {$ref: '#/$defs/node'}}}, properties: {a: {$ref: '#/$defs/node'}}}", "a: &x [*x]\n"));
+        assertEquals(List.of(recursive), validate("{type: object}", "&x {<<: *x, a: 1}\n"));
+        // shared but not recursive
+        assertEquals(List.of(), validate("{properties: {b: {uniqueItems: true}}}", "a: &x [1]\nb: [*x, [2]]\n"));
+
+        ValidationResult vres = new YamlValidator(new ValidationCache(0, 0)).validate("a: &x [*x]\n", ValidationMode.COMPOSE, ValidationLimits.DEFAULTS,
+                JsonSchema.compile("{enum: [1]}"));
+        assertEquals(ValidationResult.Outcome.SCHEMA_VIOLATION, vres.getOutcome());
+    }
+
+    @Test
+    void testSchemaRecursionWithoutDescentIsCutShort() {
+        List<String> errors = validate("{$defs: {a: {$ref: '#/$defs/a'}}, $ref: '#/$defs/a'}", "a: 1\n");
+        assertEquals(List.of("$: the schema nests more than " + JsonSchema.MAX_CHECK_DEPTH + " checks deep"), errors);
+    }
+
+    @Test
+    void testCheckpointIsCalledDuringLongChecks() {
+        YamlValidator.Pipeline pipeline = new YamlValidator.Pipeline();
+        String yaml = "[" + "1, ".repeat(5000) + "1]";
+        int[] calls = new int[1];
+        JsonSchema.compile("{items: {type: integer}}").validate(pipeline.compose(pipeline.open(yaml, ValidationLimits.DEFAULTS), ValidationLimits.DEFAULTS),
+                pipeline::constructScalar, () -> calls[0]++);
+        assertTrue(calls[0] >= 4, "checkpoint called " + calls[0] + " times");
+        assertThrows(ValidationTimeoutException.class, () -> JsonSchema.compile("{items: {type: integer}}").validate(
+                pipeline.compose(pipeline.open(yaml, ValidationLimits.DEFAULTS), ValidationLimits.DEFAULTS),
+                pipeline::constructScalar, () -> {
+                    throw new ValidationTimeoutException("validation did not complete within 1 ms");
+                }));
+    }
+}
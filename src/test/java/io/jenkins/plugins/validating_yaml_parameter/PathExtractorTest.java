@@ -0,0 +1,111 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 csanchez.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.jenkins.plugins.validating_yaml_parameter;
+
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.yaml.snakeyaml.error.YAMLException;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author csanchez
+ */
+class PathExtractorTest {
+
+    private static final String YAML = """
+            image:
+              name: nginx
+              tag: "1.25"
+            containers:
+              - name: web
+                ports: [80, 443]
+              - {name: sidecar}
+            replicas: &r 3
+            copy: *r
+            """;
+
+    private static Map<String, String> extract(String paths, String yaml) {
+        return YamlValidator.get().extract(yaml, ValidationLimits.DEFAULTS, PathExtractor.compile("CONFIG", paths));
+    }
+
+    @Test
+    void testExtractsScalars() {
+        assertEquals(Map.of("CONFIG_IMAGE_TAG", "1.25", "CONFIG_CONTAINERS_1_NAME", "sidecar", "PORT", "443", "CONFIG_COPY", "3"),
+                extract("image.tag\ncontainers[1].name\n# comment\n\nPORT = containers[0].ports[1]\ncopy\n", YAML));
+    }
+
+    @Test
+    void testMissingAndNonScalarPathsAreNotExported() {
+        assertEquals(Map.of(), extract("image\nimage.missing\ncontainers[5].name\nreplicas.x\n", YAML));
+    }
+
+    @Test
+    void testStopsOnceEveryPathIsFound() {
+        assertEquals(Map.of("A", "1"), extract("A=[0].a", "- a: 1\n- [unterminated\n"));
+        assertEquals(Map.of("A", "1", "B", "2"), extract("A=[0].a\nB=[1]\n", "- a: 1\n- 2\n- [unterminated\n"));
+    }
+
+    @Test
+    void testTopLevelMappingsAreReadToTheEnd() {
+        assertThrows(YAMLException.class, () -> extract("a", "a: 1\nb: [unterminated\n"));
+    }
+
+    @Test
+    void testLastRepeatedKeyWins() {
+        assertEquals(Map.of("CONFIG_A", "2"), extract("a", "a: 1\na: 2\n"));
+        assertEquals(Map.of("CONFIG_A_C", "3"), extract("a.b\na.c\n", "a: {b: 1, c: 2}\na: {c: 3}\n"));
+        assertEquals(Map.of("A", "2"), extract("A=[0].a", "- a: 1\n  a: 2\n- [unterminated\n"));
+    }
+
+    @Test
+    void testRepeatedPathsAreCountedOnce() {
+        assertEquals(Map.of("X", "1", "Y", "1"), extract("X=[0].a\nY=[0].a\nX=[0].a\n", "- a: 1\n- [unterminated\n"));
+        assertThrows(IllegalArgumentException.class, () -> PathExtractor.compile("CONFIG", "X=a\nX=b\n"));
+    }
+
+    @Test
+    void testDocumentsAreReadAsASequence() {
+        String yaml = "image: {tag: '1.0'}\n---\nimage: {tag: '2.0'}\n--- three\n";
+        assertEquals(Map.of("FIRST", "1.0", "SECOND", "2.0", "THIRD", "three"), YamlValidator.get().extract(yaml, true, ValidationLimits.DEFAULTS,
+                PathExtractor.compile("CONFIG", "FIRST=[0].image.tag\nSECOND=[1].image.tag\nTHIRD=[2]\n")));
+        assertEquals(Map.of("FIRST", "1.0"), YamlValidator.get().extract("image: {tag: '1.0'}\n---\n[unterminated\n", true, ValidationLimits.DEFAULTS,
+                PathExtractor.compile("CONFIG", "FIRST=[0].image.tag\n")));
+    }
+
+    @Test
+    void testInvalidPaths() {
+        assertThrows(IllegalArgumentException.class, () -> PathExtractor.compile("CONFIG", "a..b"));
+        assertThrows(IllegalArgumentException.class, () -> PathExtractor.compile("CONFIG", ".a"));
+        assertThrows(IllegalArgumentException.class, () -> PathExtractor.compile("CONFIG", "a[x]"));
+        assertThrows(IllegalArgumentException.class, () -> PathExtractor.compile("CONFIG", "A B"));
+        assertTrue(PathExtractor.compile("CONFIG", " \n# nothing\n").isEmpty());
+    }
+
+    @Test
+    void testDefaultVariableNames() {
+        assertEquals("CONFIG_IMAGE_TAG", PathExtractor.defaultVariable("CONFIG", "image.tag"));
+        assertEquals("MY_PARAM_ITEMS_0_NAME", PathExtractor.defaultVariable("my-param", "items[0].name"));
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 csanchez.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.jenkins.plugins.validating_yaml_parameter;
+
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author csanchez
+ */
+class SchemaRegistryTest {
+
+    @Test
+    void testLookupById() {
+        SchemaRegistry registry = new SchemaRegistry();
+        registry.update(List.of(new NamedSchema("service", "{type: object}"), new NamedSchema(" job ", "{type: array}")));
+        assertEquals(Set.of("job", "service"), registry.getIds());
+        assertSame(JsonSchema.compile("{type: object}"), registry.lookup("service"));
+        assertNull(registry.lookup("missing"));
+        assertNull(registry.lookup(null));
+    }
+
+    @Test
+    void testUpdateReplacesAllSchemas() {
+        SchemaRegistry registry = new SchemaRegistry();
+        registry.update(List.of(new NamedSchema("a", "{type: object}"), new NamedSchema("b", "{type: object}")));
+        registry.update(List.of(new NamedSchema("b", "{type: array}")));
+        assertEquals(Set.of("b"), registry.getIds());
+        assertSame(JsonSchema.compile("{type: array}"), registry.lookup("b"));
+        registry.update(null);
+        assertEquals(Set.of(), registry.getIds());
+    }
+
+    @Test
+    void testBrokenSchemaKeepsPreviousVersion() {
+        SchemaRegistry registry = new SchemaRegistry();
+        registry.update(List.of(new NamedSchema("a", "{type: object}")));
+        registry.update(List.of(new NamedSchema("a", "{pattern: '['}"), new NamedSchema("b", "{pattern: '['}")));
+        assertSame(JsonSchema.compile("{type: object}"), registry.lookup("a"));
+        assertNull(registry.lookup("b"));
+    }
+
+    @Test
+    void testFirstDuplicateWins() {
+        SchemaRegistry registry = new SchemaRegistry();
+        registry.update(List.of(new NamedSchema("a", "{type: object}"), new NamedSchema("a", "{type: array}")));
+        assertSame(JsonSchema.compile("{type: object}"), registry.lookup("a"));
+    }
+}
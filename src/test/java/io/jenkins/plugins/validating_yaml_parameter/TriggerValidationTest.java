@@ -0,0 +1,98 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 csanchez.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.jenkins.plugins.validating_yaml_parameter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author csanchez
+ */
+class TriggerValidationTest {
+
+    @Test
+    void testParametersAreValidatedTogether() {
+        Map<String, TriggerValidation.Candidate> values = new LinkedHashMap<>();
+        values.put("A", new TriggerValidation.Candidate(new ValidatingYamlParameterDefinition("A", "a: 1", "error", "description"), "a: 2"));
+        values.put("B", new TriggerValidation.Candidate(new ValidatingYamlParameterDefinition("B", "b: 1", "error", "description"), "b: [2]"));
+        values.put("C", new TriggerValidation.Candidate(new ValidatingYamlParameterDefinition("C", "c: 1", "error", "description"), "c: 3"));
+        TriggerValidation trigger = TriggerValidation.validate(values, ValidationEntryPoint.SUBMISSION, "job");
+        assertNull(trigger.describeFailures(values, ValidationEntryPoint.SUBMISSION));
+        assertTrue(trigger.get("B", "b: [2]").getResult());
+        // a value other than the one validated is left to its parameter
+        assertNull(trigger.get("B", "b: [3]"));
+        assertNull(trigger.get("D", "d: 1"));
+    }
+
+    @Test
+    void testEveryFailingParameterIsReported() {
+        ValidatingYamlParameterDefinition schema = new ValidatingYamlParameterDefinition("B", "kind: A", "error", "description");
+        schema.setSchema("{type: object, required: [kind]}");
+        Map<String, TriggerValidation.Candidate> values = new LinkedHashMap<>();
+        values.put("A", new TriggerValidation.Candidate(new ValidatingYamlParameterDefinition("A", "a: 1", "error", "description"), "a: : 2"));
+        values.put("B", new TriggerValidation.Candidate(schema, "name: B"));
+        values.put("C", new TriggerValidation.Candidate(new ValidatingYamlParameterDefinition("C", "c: 1", "error", "description"), "c: 3"));
+        TriggerValidation trigger = TriggerValidation.validate(values, ValidationEntryPoint.REQUEST, "job");
+        assertEquals("2 parameters were turned down: Invalid value for parameter [A] specified: a: : 2; "
+                + "Value for parameter [B] does not match its schema: " + trigger.get("B", "name: B").getError(),
+                trigger.describeFailures(values, ValidationEntryPoint.REQUEST));
+
+        values.remove("B");
+        trigger = TriggerValidation.validate(values, ValidationEntryPoint.SUBMISSION, "job");
+        assertEquals("Invalid YAML syntax for parameter [A] specified: a: : 2", trigger.describeFailures(values, ValidationEntryPoint.SUBMISSION));
+    }
+
+    @Test
+    void testSingleParameterValidatesItself() {
+        Map<String, TriggerValidation.Candidate> values = new LinkedHashMap<>();
+        values.put("A", new TriggerValidation.Candidate(new ValidatingYamlParameterDefinition("A", "a: 1", "error", "description"), "a: : 2"));
+        TriggerValidation trigger = TriggerValidation.validate(values, ValidationEntryPoint.SUBMISSION, "job");
+        assertNull(trigger.describeFailures(values, ValidationEntryPoint.SUBMISSION));
+        assertNull(trigger.get("A", "a: : 2"));
+    }
+
+    @Test
+    void testValidationsThatThrowTurnTheValueDown() {
+        ValidatingYamlParameterDefinition broken = new ValidatingYamlParameterDefinition("B", "b: 1", "error", "description") {
+            @Override
+            ValidationResult validate(String value, ValidationEntryPoint entryPoint, String job) {
+                throw new IllegalStateException("broken");
+            }
+        };
+        Map<String, TriggerValidation.Candidate> values = new LinkedHashMap<>();
+        values.put("A", new TriggerValidation.Candidate(new ValidatingYamlParameterDefinition("A", "a: 1", "error", "description"), "a: 2"));
+        values.put("B", new TriggerValidation.Candidate(broken, "b: 2"));
+        TriggerValidation trigger = TriggerValidation.validate(values, ValidationEntryPoint.SUBMISSION, "job");
+        assertTrue(trigger.get("A", "a: 2").getResult());
+        assertFalse(trigger.get("B", "b: 2").getResult());
+        assertEquals("java.lang.IllegalStateException: broken", trigger.get("B", "b: 2").getError());
+    }
+}
@@ -24,12 +24,15 @@
 package io.jenkins.plugins.validating_yaml_parameter;
 
 import hudson.AbortException;
+import hudson.cli.BuildCommand;
 import hudson.cli.CLICommand;
 import hudson.model.Failure;
 import hudson.model.Item;
+import hudson.model.Job;
 import hudson.model.StringParameterValue;
 import hudson.util.FormValidation;
 import net.sf.json.JSONObject;
+import org.apache.commons.fileupload2.core.FileItem;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.kohsuke.stapler.StaplerRequest2;
@@ -37,7 +40,16 @@ import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.mock;
 
@@ -129,6 +141,81 @@ class ValidatingYamlParameterDefinitionTest {
         );
     }
 
+    @Test
+    void testCreateValueFromCLIStdin() throws IOException, InterruptedException {
+        ValidatingYamlParameterDefinition d = new ValidatingYamlParameterDefinition(
+            "DUMMY", "default: value", "error", "description");
+        String yaml = "key: value\nother: [1, 2]\n";
+        File root = Files.createTempDirectory("job").toFile();
+        BuildCommand build = new BuildCommand();
+        build.job = job(root);
+        build.stdin = new ByteArrayInputStream(yaml.getBytes(StandardCharsets.UTF_8));
+        ValidatingYamlParameterValue v = (ValidatingYamlParameterValue) d.createValue(build, "@-");
+        assertTrue(v.isStored());
+        assertEquals(1, BlobStore.getReferences(new File(root, ValueStorage.DIRECTORY), v.getStoredDigest()));
+        assertEquals(yaml.length(), v.getLength());
+        assertEquals(BlobStore.digestOf(yaml), v.getStoredDigest());
+        assertTrue(v.isValidated());
+        assertEquals(yaml, v.getValue());
+        assertEquals("error", v.getFailedValidationMessage());
+
+        // a lone dash is still a value of its own
+        build.stdin = new ByteArrayInputStream(yaml.getBytes(StandardCharsets.UTF_8));
+        v = (ValidatingYamlParameterValue) d.createValue(build, "-");
+        assertFalse(v.isStored());
+        assertEquals("-", v.getValue());
+    }
+
+    @Test
+    void testCreateValueWithInvalidCLIStdin() throws IOException {
+        ValidatingYamlParameterDefinition d = new ValidatingYamlParameterDefinition(
+            "DUMMY", "default: value", "error", "description");
+        BuildCommand build = new BuildCommand();
+        build.job = job(Files.createTempDirectory("job").toFile());
+        build.stdin = new ByteArrayInputStream("key: : value".getBytes(StandardCharsets.UTF_8));
+        assertThrows(AbortException.class, () -> d.createValue(build, "@-"));
+
+        ValidationLimits limits = new ValidationLimits();
+        limits.setMaxBytes(10);
+        d.setLimits(limits);
+        build.stdin = new ByteArrayInputStream("key: a long enough value".getBytes(StandardCharsets.UTF_8));
+        AbortException e = assertThrows(AbortException.class, () -> d.createValue(build, "@-"));
+        assertTrue(e.getMessage().contains("exceeds 10 bytes"), e.getMessage());
+
+        // no job to spool the value to
+        cliCommand.stdin = new ByteArrayInputStream("key: value".getBytes(StandardCharsets.UTF_8));
+        assertThrows(AbortException.class, () -> d.createValue(cliCommand, "@-"));
+    }
+
+    @Test
+    void testCreateValueFromUploadedFile() throws Exception {
+        ValidatingYamlParameterDefinition d = new ValidatingYamlParameterDefinition(
+            "DUMMY", "default: value", "error", "description");
+        String yaml = "uploaded: true\n";
+        FileItem<?> upload = mock(FileItem.class);
+        Mockito.when(upload.getSize()).thenReturn((long) yaml.length());
+        Mockito.when(upload.getInputStream()).thenReturn(new ByteArrayInputStream(yaml.getBytes(StandardCharsets.UTF_8)));
+        Mockito.when(req.getFileItem2("file0")).thenReturn(upload);
+        Job<?, ?> job = job(Files.createTempDirectory("job").toFile());
+        Mockito.when(req.findAncestorObject(Job.class)).thenReturn(job);
+        JSONObject jo = new JSONObject();
+        jo.put("name", "DUMMY");
+        jo.put("value", "ignored: true");
+        jo.put("file", "file0");
+        ValidatingYamlParameterValue v = (ValidatingYamlParameterValue) d.createValue(req, jo);
+        assertTrue(v.isStored());
+        assertEquals(yaml, v.getValue());
+
+        Mockito.when(upload.getInputStream()).thenReturn(new ByteArrayInputStream("a: [".getBytes(StandardCharsets.UTF_8)));
+        assertThrows(Failure.class, () -> d.createValue(req, jo));
+    }
+
+    private static Job<?, ?> job(File root) {
+        Job<?, ?> job = mock(Job.class);
+        Mockito.when(job.getRootDir()).thenReturn(root);
+        return job;
+    }
+
     @Test
     void testCopyWithDefaultValue() {
         ValidatingYamlParameterDefinition d = new ValidatingYamlParameterDefinition(
@@ -161,7 +248,7 @@ class ValidatingYamlParameterDefinitionTest {
     @Test
     void testDescriptorValidateWithNullItem() {
         ValidatingYamlParameterDefinition.DescriptorImpl descriptor = new ValidatingYamlParameterDefinition.DescriptorImpl();
-        FormValidation validation = descriptor.doValidate("key: value", "error", null);
+        FormValidation validation = descriptor.doValidate("key: value", "error", "DUMMY", null);
         assertEquals(FormValidation.Kind.OK, validation.kind);
     }
 
@@ -169,7 +256,7 @@ class ValidatingYamlParameterDefinitionTest {
     void testDescriptorValidateWithValidYaml() {
         ValidatingYamlParameterDefinition.DescriptorImpl descriptor = new ValidatingYamlParameterDefinition.DescriptorImpl();
         Item item = mock(Item.class);
-        FormValidation validation = descriptor.doValidate("key: value", "error", item);
+        FormValidation validation = descriptor.doValidate("key: value", "error", "DUMMY", item);
         assertEquals(FormValidation.Kind.OK, validation.kind);
     }
 
@@ -177,7 +264,7 @@ class ValidatingYamlParameterDefinitionTest {
     void testDescriptorValidateWithInvalidYaml() {
         ValidatingYamlParameterDefinition.DescriptorImpl descriptor = new ValidatingYamlParameterDefinition.DescriptorImpl();
         Item item = mock(Item.class);
-        FormValidation validation = descriptor.doValidate("key: : value", "Custom error", item);
+        FormValidation validation = descriptor.doValidate("key: : value", "Custom error", "DUMMY", item);
         assertEquals(FormValidation.Kind.ERROR, validation.kind);
         assertEquals("Custom error", validation.getMessage());
     }
@@ -186,7 +273,7 @@ class ValidatingYamlParameterDefinitionTest {
     void testDescriptorValidateWithInvalidYamlNoCustomMessage() {
         ValidatingYamlParameterDefinition.DescriptorImpl descriptor = new ValidatingYamlParameterDefinition.DescriptorImpl();
         Item item = mock(Item.class);
-        FormValidation validation = descriptor.doValidate("key: : value", "", item);
+        FormValidation validation = descriptor.doValidate("key: : value", "", "DUMMY", item);
         assertEquals(FormValidation.Kind.ERROR, validation.kind);
         assertTrue(validation.getMessage().startsWith("Invalid yaml string:"));
     }
@@ -213,7 +300,7 @@ class ValidatingYamlParameterDefinitionTest {
     void testDescriptorValidateWithNullValue() {
         ValidatingYamlParameterDefinition.DescriptorImpl descriptor = new ValidatingYamlParameterDefinition.DescriptorImpl();
         Item item = mock(Item.class);
-        FormValidation validation = descriptor.doValidate(null, "error", item);
+        FormValidation validation = descriptor.doValidate(null, "error", "DUMMY", item);
         assertEquals(FormValidation.Kind.ERROR, validation.kind);
     }
 
@@ -235,7 +322,7 @@ class ValidatingYamlParameterDefinitionTest {
                            "  array:\n" +
                            "    - item1\n" +
                            "    - item2\n";
-        FormValidation validation = descriptor.doValidate(complexYaml, "error", item);
+        FormValidation validation = descriptor.doValidate(complexYaml, "error", "DUMMY", item);
         assertEquals(FormValidation.Kind.OK, validation.kind);
     }
 
@@ -251,7 +338,7 @@ class ValidatingYamlParameterDefinitionTest {
                                   "    - item1\n" +
                                   "    - item2\n" +
                                   "  invalid: : value\n";
-        FormValidation validation = descriptor.doValidate(invalidComplexYaml, "Custom error", item);
+        FormValidation validation = descriptor.doValidate(invalidComplexYaml, "Custom error", "DUMMY", item);
         assertEquals(FormValidation.Kind.ERROR, validation.kind);
         assertEquals("Custom error", validation.getMessage());
     }
@@ -306,4 +393,146 @@ class ValidatingYamlParameterDefinitionTest {
         v = (ValidatingYamlParameterValue) d.createValue(req);
         assertEquals(d.getDefaultParameterValue().getValue(), v.getValue());
     }
+
+    @Test
+    void testValidationModeDefaultsToConstruct() {
+        ValidatingYamlParameterDefinition d = new ValidatingYamlParameterDefinition(
+            "DUMMY", "default: value", "error", "description");
+        assertEquals(ValidationMode.CONSTRUCT, d.getValidationMode());
+        assertEquals(ValidationMode.CONSTRUCT, d.getDefaultParameterValue().getValidationMode());
+    }
+
+    @Test
+    void testValidationModeIsPropagatedToValues() throws IOException, InterruptedException {
+        ValidatingYamlParameterDefinition d = new ValidatingYamlParameterDefinition(
+            "DUMMY", "default: value", "error", "description");
+        d.setValidationMode(ValidationMode.PARSE);
+        ValidatingYamlParameterValue v = (ValidatingYamlParameterValue) d.createValue(cliCommand, "key: !custom value");
+        assertEquals(ValidationMode.PARSE, v.getValidationMode());
+        assertNull(v.createBuildWrapper(null));
+
+        ValidatingYamlParameterDefinition copied = (ValidatingYamlParameterDefinition) d.copyWithDefaultValue(v);
+        assertEquals(ValidationMode.PARSE, copied.getValidationMode());
+    }
+
+    @Test
+    void testConstructModeRejectsUnknownTags() {
+        ValidatingYamlParameterDefinition d = new ValidatingYamlParameterDefinition(
+            "DUMMY", "default: value", "error", "description");
+        assertThrows(AbortException.class, () -> d.createValue(cliCommand, "key: !custom value"));
+    }
+
+    @Test
+    void testLimitViolationIsReportedDistinctly() {
+        ValidatingYamlParameterDefinition d = new ValidatingYamlParameterDefinition(
+            "DUMMY", "default: value", "error", "description");
+        ValidationLimits limits = new ValidationLimits();
+        limits.setMaxNodes(3);
+        d.setLimits(limits);
+        Mockito.when(req.getParameterValues("DUMMY")).thenReturn(new String[]{"a: 1\nb: 2\n"});
+        Failure failure = assertThrows(Failure.class, () -> d.createValue(req));
+        assertEquals("Req: Value for parameter [DUMMY] rejected: document exceeds the maximum of 3 nodes", failure.getMessage());
+        assertSame(limits, d.getDefaultParameterValue().getLimits());
+    }
+
+    @Test
+    void testSchemaViolationIsReportedWithPath() {
+        ValidatingYamlParameterDefinition d = new ValidatingYamlParameterDefinition(
+            "DUMMY", "default: value", "error", "description");
+        d.setSchema("{type: object, properties: {replicas: {type: integer}}}");
+        AbortException e = assertThrows(AbortException.class, () -> d.createValue(cliCommand, "replicas: many"));
+        assertEquals("Value for parameter [DUMMY] does not match its schema: $.replicas: expected integer but found string", e.getMessage());
+        assertDoesNotThrow(() -> d.createValue(cliCommand, "replicas: 3"));
+    }
+
+    @Test
+    void testInvalidSchemaRejectsValues() {
+        ValidatingYamlParameterDefinition d = new ValidatingYamlParameterDefinition(
+            "DUMMY", "default: value", "error", "description");
+        d.setSchema("{pattern: '['}");
+        assertEquals(ValidationResult.Outcome.SCHEMA_VIOLATION, d.validate("a: 1").getOutcome());
+        assertTrue(new ValidatingYamlParameterDefinition.DescriptorImpl()
+                .doCheckSchema("{pattern: '['}", mock(Item.class)).getMessage().startsWith("Invalid schema: "));
+    }
+
+    @Test
+    void testBlankSchemaIsNone() {
+        ValidatingYamlParameterDefinition d = new ValidatingYamlParameterDefinition(
+            "DUMMY", "default: value", "error", "description");
+        d.setSchema("  ");
+        assertNull(d.getSchema());
+        assertNull(d.getCompiledSchema());
+    }
+
+    @Test
+    void testSharedSchemaIsResolvedById() {
+        ValidatingYamlParameterDefinition d = new ValidatingYamlParameterDefinition(
+            "DUMMY", "default: value", "error", "description");
+        d.setSchemaId("testSharedSchemaIsResolvedById");
+        assertEquals(ValidationResult.Outcome.SCHEMA_VIOLATION, d.validate("a: 1").getOutcome());
+        SchemaRegistry.get().update(List.of(new NamedSchema("testSharedSchemaIsResolvedById", "{type: array}")));
+        try {
+            assertSame(SchemaRegistry.get().lookup("testSharedSchemaIsResolvedById"), d.getCompiledSchema());
+            assertTrue(d.validate("[1]").getResult());
+            assertEquals("$: expected array but found object", d.validate("a: 1").getError());
+        } finally {
+            SchemaRegistry.get().update(List.of());
+        }
+    }
+
+    @Test
+    void testDefaultValueIsFingerprinted() throws Exception {
+        ValidatingYamlParameterDefinition d = new ValidatingYamlParameterDefinition("DUMMY", "key: value\n", "msg", "description");
+        assertFalse(d.isDefaultValueValidated());
+        ValidatingYamlParameterValue v = d.getDefaultParameterValue();
+        assertTrue(d.isDefaultValueValidated());
+        assertTrue(v.isValidated());
+        assertNull(v.createBuildWrapper(null));
+
+        ValidatingYamlParameterValue created = (ValidatingYamlParameterValue) d.createValue(cliCommand, "other: value\n");
+        assertTrue(created.isValidated());
+
+        // other settings, other fingerprint
+        d.setValidationMode(ValidationMode.PARSE);
+        assertFalse(d.isDefaultValueValidated());
+        v.setValidationMode(ValidationMode.PARSE);
+        assertFalse(v.isValidated());
+        d.getDefaultParameterValue();
+        assertTrue(d.isDefaultValueValidated());
+    }
+
+    @Test
+    void testEditedDefaultValueLosesItsFingerprint() throws Exception {
+        ValidatingYamlParameterDefinition d = new ValidatingYamlParameterDefinition("DUMMY", "key: value\n", "msg", "description");
+        d.getDefaultParameterValue();
+        assertTrue(reload(d).isDefaultValueValidated());
+
+        // as if config.xml had been edited by hand
+        Field defaultValue = ValidatingYamlParameterDefinition.class.getDeclaredField("defaultValue");
+        defaultValue.setAccessible(true);
+        defaultValue.set(d, "key: value: other");
+        ValidatingYamlParameterDefinition loaded = reload(d);
+        assertFalse(loaded.isDefaultValueValidated());
+        assertFalse(loaded.getDefaultParameterValue().isValidated());
+        assertFalse(loaded.isDefaultValueValidated());
+    }
+
+    private static <T> T reload(T saved) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(saved);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            @SuppressWarnings("unchecked")
+            T loaded = (T) in.readObject();
+            return loaded;
+        }
+    }
+
+    @Test
+    void testInvalidDefaultValueIsNotFingerprinted() {
+        ValidatingYamlParameterDefinition d = new ValidatingYamlParameterDefinition("DUMMY", "key: value: other", "msg", "description");
+        assertFalse(d.getDefaultParameterValue().isValidated());
+        assertFalse(d.isDefaultValueValidated());
+    }
 }
@@ -24,11 +24,25 @@
 package io.jenkins.plugins.validating_yaml_parameter;
 
 import hudson.AbortException;
+import hudson.EnvVars;
 import hudson.Launcher;
 import hudson.model.AbstractBuild;
 import hudson.model.BuildListener;
 import hudson.tasks.BuildWrapper;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
 import org.junit.jupiter.api.Test;
+import org.kohsuke.stapler.export.ExportConfig;
+import org.kohsuke.stapler.export.Flavor;
+import org.kohsuke.stapler.export.ModelBuilder;
+import org.yaml.snakeyaml.error.YAMLException;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.mock;
 
@@ -194,4 +208,134 @@ class ValidatingYamlParameterValueTest {
         ValidatingYamlParameterValue v2 = new ValidatingYamlParameterValue("DUMMY", "key: value", "error", "desc2");
         assertEquals(v1, v2); // Description shouldn't affect equality
     }
+
+    @Test
+    void testDocumentIsParsedOnceAndReadOnly() {
+        ValidatingYamlParameterValue value = new ValidatingYamlParameterValue("DUMMY", "base: &b {image: nginx}\nitems: [*b, *b]\n");
+        Object document = value.getDocument();
+        assertSame(document, value.getDocument());
+        Map<?, ?> map = (Map<?, ?>) document;
+        List<?> items = (List<?>) map.get("items");
+        assertEquals("nginx", ((Map<?, ?>) items.get(0)).get("image"));
+        assertEquals(map.get("base"), items.get(1));
+        assertThrows(UnsupportedOperationException.class, () -> ((Map<Object, Object>) items.get(0)).put("image", "x"));
+        assertThrows(UnsupportedOperationException.class, () -> items.clear());
+    }
+
+    @Test
+    void testSeveralDocumentsAreReadAsAList() {
+        ValidatingYamlParameterValue value = new ValidatingYamlParameterValue("CONFIG", "kind: Service\n---\nkind: Deployment\n");
+        assertThrows(YAMLException.class, value::getDocument);
+        value.setMultiDocument(true);
+        List<?> documents = (List<?>) value.getDocument();
+        assertEquals(2, documents.size());
+        assertEquals("Deployment", ((Map<?, ?>) documents.get(1)).get("kind"));
+
+        value.setExportPaths("KIND=[1].kind");
+        assertEquals(Map.of("KIND", "Deployment"), value.getExportedVariables());
+    }
+
+    @Test
+    void testEmptyDocument() {
+        assertNull(new ValidatingYamlParameterValue("DUMMY", "").getDocument());
+    }
+
+    @Test
+    void testInvalidDocumentThrows() {
+        assertThrows(YAMLException.class, () -> new ValidatingYamlParameterValue("DUMMY", "key: : value").getDocument());
+    }
+
+    @Test
+    void testBuildEnvExportsPaths() {
+        ValidatingYamlParameterValue value = new ValidatingYamlParameterValue("CONFIG", "image: {tag: '1.25'}\nreplicas: 3\n");
+        value.setExportPaths("image.tag\nCOUNT=replicas");
+        EnvVars env = new EnvVars();
+        value.buildEnv(null, env);
+        assertEquals("1.25", env.get("CONFIG_IMAGE_TAG"));
+        assertEquals("3", env.get("COUNT"));
+        assertSame(value.getExportedVariables(), value.getExportedVariables());
+    }
+
+    @Test
+    void testLargeValueIsStoredOutsideTheRecord() throws Exception {
+        File dir = Files.createTempDirectory("yaml-parameters").toFile();
+        String text = "key: " + "x".repeat(1000) + "\n";
+        ValidatingYamlParameterValue value = new ValidatingYamlParameterValue("DUMMY", text);
+        assertFalse(value.offload(dir, 2000, "1"));
+        assertFalse(value.isStored());
+        assertTrue(value.offload(dir, 100, "1"));
+        assertTrue(value.isStored());
+        assertNull(value.value);
+        assertEquals(text.length(), value.getLength());
+        assertEquals(text, value.getValue());
+        assertEquals(new ValidatingYamlParameterValue("DUMMY", text), value);
+        assertEquals(new ValidatingYamlParameterValue("DUMMY", text).hashCode(), value.hashCode());
+
+        // as loaded from build.xml: nothing in memory but the digest
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(value);
+        }
+        ValidatingYamlParameterValue loaded;
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            loaded = (ValidatingYamlParameterValue) in.readObject();
+        }
+        assertNull(loaded.getValue());
+        loaded.setStorageDirectory(dir);
+        assertEquals(text, loaded.getValue());
+        assertEquals(value, loaded);
+    }
+
+    @Test
+    void testEditedValueLosesItsFingerprint() throws Exception {
+        ValidatingYamlParameterValue value = new ValidatingYamlParameterValue("DUMMY", "key: value\n");
+        value.markValidated(ValidationFingerprint.digest("key: value\n"));
+        assertTrue(reload(value).isValidated());
+
+        // as if build.xml had been edited by hand
+        value.value = "key: value: other";
+        assertFalse(reload(value).isValidated());
+    }
+
+    private static ValidatingYamlParameterValue reload(ValidatingYamlParameterValue saved) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(saved);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            return (ValidatingYamlParameterValue) in.readObject();
+        }
+    }
+
+    @Test
+    void testStoredValueIsReadThroughTheApi() throws Exception {
+        File dir = Files.createTempDirectory("yaml-parameters").toFile();
+        String text = "key: " + "x".repeat(1000) + "\n";
+        ValidatingYamlParameterValue value = new ValidatingYamlParameterValue("DUMMY", text);
+        assertTrue(value.offload(dir, 100, "1"));
+        assertNull(value.value);
+
+        StringWriter json = new StringWriter();
+        new ModelBuilder().get(ValidatingYamlParameterValue.class).writeTo(value, Flavor.JSON.createDataWriter(value, json, new ExportConfig()));
+        assertTrue(json.toString().contains("\"value\":\"key: " + "x".repeat(1000) + "\\n\""), json.toString());
+        assertEquals("DUMMY='" + text + "'", value.getShortDescription());
+    }
+
+    @Test
+    void testIdenticalValuesAreStoredOnce() throws Exception {
+        File dir = Files.createTempDirectory("yaml-parameters").toFile();
+        String text = "key: " + "x".repeat(1000) + "\n";
+        ValidatingYamlParameterValue first = new ValidatingYamlParameterValue("A", text);
+        ValidatingYamlParameterValue second = new ValidatingYamlParameterValue("B", text);
+        assertTrue(first.offload(dir, 100, "1"));
+        assertTrue(second.offload(dir, 100, "2"));
+        assertEquals(first.getStoredDigest(), second.getStoredDigest());
+        assertEquals(1, dir.listFiles((d, name) -> name.endsWith(".yaml.gz")).length);
+        assertEquals(2, BlobStore.getReferences(dir, first.getStoredDigest()));
+
+        first.release(dir, "1");
+        assertEquals(text, second.getValue());
+        second.release(dir, "2");
+        assertEquals(0, dir.list().length);
+    }
 }
@@ -0,0 +1,103 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 csanchez.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.jenkins.plugins.validating_yaml_parameter;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author csanchez
+ */
+class ValidationCacheTest {
+
+    private static ValidationResult result(boolean ok, String error) {
+        ValidationResult vres = new ValidationResult();
+        vres.setResult(ok);
+        vres.setError(error);
+        return vres;
+    }
+
+    @Test
+    void testKeyDependsOnSettingsAndText() {
+        String key = ValidationCache.key("CONSTRUCT", "key: value");
+        assertEquals(64, key.length());
+        assertEquals(key, ValidationCache.key("CONSTRUCT", "key: value"));
+        assertNotEquals(key, ValidationCache.key("PARSE", "key: value"));
+        assertNotEquals(key, ValidationCache.key("CONSTRUCT", "key: other"));
+        assertNull(ValidationCache.key("CONSTRUCT", null));
+    }
+
+    @Test
+    void testHitAndMissCounts() {
+        ValidationCache cache = new ValidationCache(10, 1024 * 1024);
+        String key = ValidationCache.key("CONSTRUCT", "key: value");
+        assertNull(cache.lookup(key));
+        ValidationResult vres = result(true, null);
+        cache.store(key, vres);
+        assertSame(vres, cache.lookup(key));
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getSize());
+    }
+
+    @Test
+    void testEvictsLeastRecentlyUsedEntry() {
+        ValidationCache cache = new ValidationCache(2, 1024 * 1024);
+        cache.store("a", result(true, null));
+        cache.store("b", result(true, null));
+        cache.lookup("a");
+        cache.store("c", result(true, null));
+        assertNotNull(cache.lookup("a"));
+        assertNull(cache.lookup("b"));
+        assertNotNull(cache.lookup("c"));
+        assertEquals(1, cache.getEvictions());
+    }
+
+    @Test
+    void testEvictsByWeight() {
+        ValidationCache cache = new ValidationCache(100, 2000);
+        cache.store("a", result(false, "x".repeat(500)));
+        cache.store("b", result(false, "x".repeat(500)));
+        assertEquals(1, cache.getSize());
+        assertNull(cache.lookup("a"));
+        assertTrue(cache.getWeight() <= 2000);
+    }
+
+    @Test
+    void testOversizedResultIsNotCached() {
+        ValidationCache cache = new ValidationCache(100, 1000);
+        cache.store("a", result(false, "x".repeat(1000)));
+        assertEquals(0, cache.getSize());
+        assertEquals(0, cache.getEvictions());
+    }
+
+    @Test
+    void testDisabledCache() {
+        ValidationCache cache = new ValidationCache(0, 1000);
+        cache.store("a", result(true, null));
+        assertNull(cache.lookup("a"));
+        assertEquals(0, cache.getMisses());
+    }
+}
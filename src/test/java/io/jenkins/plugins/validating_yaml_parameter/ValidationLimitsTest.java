@@ -0,0 +1,111 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 csanchez.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.jenkins.plugins.validating_yaml_parameter;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author csanchez
+ */
+class ValidationLimitsTest {
+
+    @Test
+    void testEffectiveLimitsWithoutJenkinsUseDefaults() {
+        ValidationLimits limits = ValidationLimits.effective(null);
+        assertEquals(ValidationLimits.DEFAULT_MAX_BYTES, limits.getMaxBytes());
+        assertEquals(ValidationLimits.DEFAULT_MAX_CODE_POINTS, limits.getMaxCodePoints());
+        assertEquals(ValidationLimits.DEFAULT_MAX_DEPTH, limits.getMaxDepth());
+        assertEquals(ValidationLimits.DEFAULT_MAX_NODES, limits.getMaxNodes());
+        assertEquals(ValidationLimits.DEFAULT_MAX_ALIASES, limits.getMaxAliases());
+    }
+
+    @Test
+    void testPerDefinitionLimitsOverrideDefaults() {
+        ValidationLimits perDefinition = new ValidationLimits();
+        perDefinition.setMaxDepth(5);
+        perDefinition.setMaxNodes(0);
+        ValidationLimits limits = ValidationLimits.effective(perDefinition);
+        assertEquals(5, limits.getMaxDepth());
+        assertEquals(0, limits.getMaxNodes());
+        assertEquals(ValidationLimits.DEFAULT_MAX_BYTES, limits.getMaxBytes());
+    }
+
+    @Test
+    void testEffectiveLimitsAreReused() {
+        ValidationLimits perDefinition = new ValidationLimits();
+        perDefinition.setMaxDepth(5);
+        ValidationLimits limits = ValidationLimits.effective(perDefinition);
+        assertSame(limits, ValidationLimits.effective(perDefinition));
+        assertSame(limits.toLoaderOptions(), ValidationLimits.effective(perDefinition).toLoaderOptions());
+
+        perDefinition.setMaxDepth(6);
+        assertEquals(6, ValidationLimits.effective(perDefinition).getMaxDepth());
+        assertEquals(6, ValidationLimits.effective(perDefinition).toLoaderOptions().getNestingDepthLimit());
+
+        ValidationLimits.globalLimitsChanged();
+        assertNotSame(limits, ValidationLimits.effective(perDefinition));
+        assertEquals(6, ValidationLimits.effective(perDefinition).getMaxDepth());
+    }
+
+    @Test
+    void testKeyReflectsEveryLimit() {
+        ValidationLimits perDefinition = new ValidationLimits();
+        perDefinition.setMaxAliases(7);
+        assertNotEquals(ValidationLimits.DEFAULTS.key(), ValidationLimits.effective(perDefinition).key());
+        assertEquals(ValidationLimits.DEFAULTS.key(), ValidationLimits.effective(null).key());
+    }
+
+    @Test
+    void testPrescanCountsUtf8Bytes() {
+        ValidationLimits limits = new ValidationLimits(6, null, null, null, null);
+        assertNull(limits.prescan("k: v"));
+        assertNull(limits.prescan("k: é"));
+        assertEquals("document exceeds 6 bytes", limits.prescan("k: 你好"));
+        assertEquals("document exceeds 6 bytes", limits.prescan("k: 😀"));
+    }
+
+    @Test
+    void testPrescanCountsCodePoints() {
+        ValidationLimits limits = new ValidationLimits(null, 4, null, null, null);
+        assertNull(limits.prescan("k: 😀"));
+        assertEquals("document exceeds 4 code points", limits.prescan("k: 😀😀"));
+    }
+
+    @Test
+    void testUnsetLimitsAreNotChecked() {
+        ValidationLimits limits = new ValidationLimits(0, -1, null, null, null);
+        assertNull(limits.prescan("x".repeat(10_000)));
+    }
+
+    @Test
+    void testLoaderOptions() {
+        ValidationLimits limits = new ValidationLimits(null, 100, 10, null, 3);
+        assertEquals(100, limits.toLoaderOptions().getCodePointLimit());
+        assertEquals(10, limits.toLoaderOptions().getNestingDepthLimit());
+        assertEquals(3, limits.toLoaderOptions().getMaxAliasesForCollections());
+        assertEquals(Integer.MAX_VALUE, new ValidationLimits().toLoaderOptions().getNestingDepthLimit());
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 csanchez.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.jenkins.plugins.validating_yaml_parameter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import net.sf.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author csanchez
+ */
+class ValidationMetricsTest {
+
+    @Test
+    void testValidationsAreCountedPerEntryPointAndJob() {
+        ValidationMetrics metrics = new ValidationMetrics();
+        ValidationResult valid = new ValidationResult();
+        valid.setResult(true);
+        ValidationResult invalid = new ValidationResult();
+        assertEquals(valid, metrics.measure(ValidationEntryPoint.FORM, "folder/job", "CONFIG", 10, () -> valid));
+        metrics.measure(ValidationEntryPoint.FORM, "folder/job", "CONFIG", 20, () -> invalid);
+        metrics.record(ValidationEntryPoint.BUILD, null, 30, 1000, ValidationResult.Outcome.TIMEOUT);
+
+        ValidationMetrics.Counts form = metrics.getCounts(ValidationEntryPoint.FORM);
+        assertEquals(1, form.get(ValidationResult.Outcome.VALID));
+        assertEquals(1, form.get(ValidationResult.Outcome.INVALID));
+        assertEquals(2, form.getTotal());
+        assertEquals(1, metrics.getCounts(ValidationEntryPoint.BUILD).get(ValidationResult.Outcome.TIMEOUT));
+        assertEquals(2, metrics.getJobCounts("folder/job").getTotal());
+        assertEquals(3, metrics.getSizes().getCount());
+        assertEquals(32, metrics.getSizes().getPercentile(1));
+
+        JSONObject json = metrics.toJSON();
+        assertNotNull(json.get("cache"));
+
+        metrics.reset();
+        assertEquals(0, form.getTotal());
+        assertNull(metrics.getJobCounts("folder/job"));
+        assertEquals(0, metrics.getLatency().getCount());
+    }
+
+    @Test
+    void testJobsBeyondTheMaximumAreCountedTogether() {
+        ValidationMetrics metrics = new ValidationMetrics();
+        for (int i = 0; i < ValidationMetrics.MAX_JOBS + 10; i++) {
+            metrics.record(ValidationEntryPoint.CLI, "job" + i, 1, 1, ValidationResult.Outcome.VALID);
+        }
+        assertEquals(10, metrics.getJobCounts(ValidationMetrics.OTHER_JOBS).getTotal());
+        assertNull(metrics.getJobCounts("job" + (ValidationMetrics.MAX_JOBS + 5)));
+    }
+
+    @Test
+    void testHistogramBuckets() {
+        ValidationMetrics.Histogram histogram = new ValidationMetrics.Histogram();
+        assertEquals(0, histogram.getPercentile(0.5));
+        for (long value : new long[] {0, 1, 2, 3, 100, 1000}) {
+            histogram.add(value);
+        }
+        assertEquals(6, histogram.getCount());
+        assertEquals(4, histogram.getPercentile(0.5));
+        assertEquals(1024, histogram.getPercentile(0.99));
+        assertEquals(0, ValidationMetrics.Histogram.bucket(0));
+        assertEquals(1, ValidationMetrics.Histogram.bucket(1));
+        assertEquals(63, ValidationMetrics.Histogram.bucket(Long.MAX_VALUE));
+    }
+
+    @Test
+    void testValidationsAreRecordedAsFlightRecorderEvents() throws Exception {
+        ValidationMetrics metrics = new ValidationMetrics();
+        Path file = Files.createTempFile("validation", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(ValidationEvent.class).withThreshold(Duration.ZERO);
+            recording.start();
+            metrics.measure(ValidationEntryPoint.CLI, "folder/job", "CONFIG", 12, () -> YamlValidator.get()
+                    .check("a: [1, 2]\n", ValidationMode.COMPOSE, ValidationLimits.effective(null), null, System.nanoTime()));
+            recording.stop();
+            recording.dump(file);
+        }
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        Files.delete(file);
+        assertEquals(1, events.size());
+        RecordedEvent event = events.get(0);
+        assertEquals("folder/job", event.getString("job"));
+        assertEquals("CONFIG", event.getString("parameter"));
+        assertEquals("CLI", event.getString("entryPoint"));
+        assertEquals(12, event.getLong("length"));
+        assertEquals(5, event.getInt("nodes"));
+        assertEquals("VALID", event.getString("outcome"));
+    }
+
+    @Test
+    void testValidationsThatThrowAreRecordedAsErrors() throws Exception {
+        ValidationMetrics metrics = new ValidationMetrics();
+        Path file = Files.createTempFile("validation", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(ValidationEvent.class).withThreshold(Duration.ZERO);
+            recording.start();
+            assertThrows(IllegalStateException.class, () -> metrics.measure(ValidationEntryPoint.BUILD, "folder/job", "CONFIG", 12, () -> {
+                throw new IllegalStateException("broken");
+            }));
+            recording.stop();
+            recording.dump(file);
+        }
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        Files.delete(file);
+        assertEquals(1, metrics.getCounts(ValidationEntryPoint.BUILD).get(ValidationResult.Outcome.ERROR));
+        assertEquals(1, metrics.getJobCounts("folder/job").getTotal());
+        assertEquals(1, events.size());
+        assertEquals("ERROR", events.get(0).getString("outcome"));
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 csanchez.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.jenkins.plugins.validating_yaml_parameter;
+
+import org.junit.jupiter.api.Test;
+import org.yaml.snakeyaml.error.YAMLException;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author csanchez
+ */
+class ValidationModeTest {
+
+    private static void check(ValidationMode mode, String value) {
+        YamlValidator.Pipeline pipeline = new YamlValidator.Pipeline();
+        mode.check(pipeline, pipeline.open(value, ValidationLimits.DEFAULTS), ValidationLimits.DEFAULTS);
+    }
+
+    @Test
+    void testValidYamlPassesInEveryMode() {
+        String complexYaml = "---\n" +
+                           "key1: value1\n" +
+                           "key2:\n" +
+                           "  nested: value2\n" +
+                           "  array:\n" +
+                           "    - item1\n" +
+                           "    - item2\n";
+        for (ValidationMode mode : ValidationMode.values()) {
+            assertDoesNotThrow(() -> check(mode, complexYaml), mode.name());
+        }
+    }
+
+    @Test
+    void testSyntaxErrorFailsInEveryMode() {
+        for (ValidationMode mode : ValidationMode.values()) {
+            assertThrows(YAMLException.class, () -> check(mode, "key: : value"), mode.name());
+        }
+    }
+
+    @Test
+    void testMultipleDocumentsFailInEveryMode() {
+        for (ValidationMode mode : ValidationMode.values()) {
+            assertThrows(YAMLException.class, () -> check(mode, "a: 1\n---\nb: 2\n"), mode.name());
+        }
+    }
+
+    @Test
+    void testUnknownTagOnlyFailsConstruction() {
+        String yamlWithTag = "key: !custom value";
+        assertThrows(YAMLException.class, () -> check(ValidationMode.CONSTRUCT, yamlWithTag));
+        assertDoesNotThrow(() -> check(ValidationMode.COMPOSE, yamlWithTag));
+        assertDoesNotThrow(() -> check(ValidationMode.PARSE, yamlWithTag));
+    }
+
+    @Test
+    void testDisplayName() {
+        assertEquals("Full construction", ValidationMode.CONSTRUCT.getDisplayName());
+        assertEquals("Compose only", ValidationMode.COMPOSE.getDisplayName());
+        assertEquals("Event stream only", ValidationMode.PARSE.getDisplayName());
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 csanchez.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.jenkins.plugins.validating_yaml_parameter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import hudson.cli.CLICommand;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+/**
+ *
+ * @author csanchez
+ */
+class ValidationReportTest {
+
+    @Test
+    void testReportRecordsHowValuesWereValidated() throws Exception {
+        ValidatingYamlParameterDefinition d = new ValidatingYamlParameterDefinition("CONFIG", "a: 1\n", "msg", "description");
+        String yaml = "testReportRecordsHowValuesWereValidated: &base {a: [1, {b: 2}]}\ncopy: *base\n";
+        CLICommand cli = Mockito.mock(CLICommand.class);
+        ValidatingYamlParameterValue first = (ValidatingYamlParameterValue) d.createValue(cli, yaml);
+        ValidatingYamlParameterValue second = (ValidatingYamlParameterValue) d.createValue(cli, yaml);
+        ValidatingYamlParameterValue copied = new ValidatingYamlParameterValue("OTHER", "b: 2\n");
+
+        ValidationReport report = ValidationReport.of(List.of(first, second, copied));
+        assertEquals(3, report.getEntries().size());
+        ValidationReport.Entry entry = report.getEntries().get(0);
+        assertEquals("CONFIG", entry.getName());
+        assertEquals(yaml.length(), entry.getLength());
+        assertTrue(entry.isValidated());
+        assertEquals("VALID", entry.getOutcome());
+        assertEquals(1, entry.getDocuments());
+        assertEquals(4, entry.getMaxDepth());
+        assertEquals(11, entry.getNodes());
+        assertEquals(1, entry.getAliases());
+        assertFalse(entry.isCacheHit());
+        assertEquals("CONSTRUCT", entry.getMode());
+        assertTrue(entry.getLimits().startsWith("bytes="));
+
+        ValidationReport.Entry reused = report.getEntries().get(1);
+        assertTrue(reused.isCacheHit());
+        assertEquals(11, reused.getNodes());
+        assertEquals(entry.getParseNanos(), reused.getParseNanos());
+
+        assertFalse(report.getEntries().get(2).isValidated());
+    }
+
+    @Test
+    void testValidationSurvivesARestartWhileQueued() throws Exception {
+        ValidatingYamlParameterDefinition d = new ValidatingYamlParameterDefinition("CONFIG", "a: 1\n", "msg", "description");
+        ValidatingYamlParameterValue value = (ValidatingYamlParameterValue) d.createValue(Mockito.mock(CLICommand.class), "a: [1, 2]\n");
+
+        // as saved in the queue and loaded again
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(value);
+        }
+        ValidatingYamlParameterValue loaded;
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            loaded = (ValidatingYamlParameterValue) in.readObject();
+        }
+
+        ValidationReport.Entry entry = ValidationReport.of(List.of(loaded)).getEntries().get(0);
+        assertTrue(entry.isValidated());
+        assertEquals("VALID", entry.getOutcome());
+        assertEquals(5, entry.getNodes());
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 csanchez.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.jenkins.plugins.validating_yaml_parameter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author csanchez
+ */
+class ValueSpoolTest {
+
+    @Test
+    void testSpooledValueMatchesItsDigest() throws Exception {
+        String text = "greeting: \"héllo 世界 😀\"\n";
+        File dir = Files.createTempDirectory("yaml-parameters").toFile();
+        ValidatingYamlParameterValue value;
+        try (ValueSpool spool = new ValueSpool(new StringReader(text), new ValidationLimits(), dir)) {
+            ValidationResult vres = YamlValidator.get().validate(spool, ValidationMode.CONSTRUCT, false, ValidationLimits.effective(null), null);
+            assertTrue(vres.getResult(), vres.getError());
+            value = spool.finish("DUMMY", null);
+        }
+        assertEquals(BlobStore.digestOf(text), value.getStoredDigest());
+        assertEquals(text.length(), value.getLength());
+        assertEquals(text, value.getValue());
+        assertEquals(1, BlobStore.getReferences(dir, value.getStoredDigest()));
+    }
+
+    @Test
+    void testLimitsAreCheckedWhileReading() throws Exception {
+        File dir = Files.createTempDirectory("yaml-parameters").toFile();
+        ValidationLimits limits = new ValidationLimits();
+        limits.setMaxCodePoints(3);
+        try (ValueSpool spool = new ValueSpool(new StringReader("😀😀😀"), limits, dir)) {
+            assertTrue(YamlValidator.get().validate(spool, ValidationMode.PARSE, false, limits, null).getResult());
+        }
+        limits.setMaxBytes(10);
+        try (ValueSpool spool = new ValueSpool(new StringReader("😀😀😀"), limits, dir)) {
+            ValidationResult vres = YamlValidator.get().validate(spool, ValidationMode.PARSE, false, limits, null);
+            assertEquals(ValidationResult.Outcome.LIMIT_EXCEEDED, vres.getOutcome());
+            assertEquals("document exceeds 10 bytes", vres.getError());
+        }
+    }
+
+    @Test
+    void testBuildTakesTheSpooledValueOver() throws Exception {
+        String text = "moved: true\n";
+        File dir = Files.createTempDirectory("yaml-parameters").toFile();
+        ValidatingYamlParameterValue value = spool(text, dir);
+        String digest = value.getStoredDigest();
+        assertTrue(value.offload(dir, Integer.MAX_VALUE, "1"));
+        assertNull(value.getSpoolReference());
+        assertEquals(1, BlobStore.getReferences(dir, digest));
+        assertEquals(text, BlobStore.read(dir, digest));
+
+        assertTrue(value.offload(dir, Integer.MAX_VALUE, "2"));
+        assertEquals(2, BlobStore.getReferences(dir, digest));
+
+        // handed to the build of another job
+        File other = Files.createTempDirectory("yaml-parameters").toFile();
+        ValidatingYamlParameterValue copied = spool(text, dir);
+        assertTrue(copied.offload(other, Integer.MAX_VALUE, "1"));
+        assertEquals(2, BlobStore.getReferences(dir, digest));
+        assertEquals(text, BlobStore.read(other, digest));
+    }
+
+    @Test
+    void testSpoolReferenceSurvivesARestart() throws Exception {
+        String text = "queued: true\n";
+        File dir = Files.createTempDirectory("yaml-parameters").toFile();
+        ValidatingYamlParameterValue value = spool(text, dir);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(value);
+        }
+        ValidatingYamlParameterValue loaded;
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            loaded = (ValidatingYamlParameterValue) in.readObject();
+        }
+        assertEquals(value.getSpoolReference(), loaded.getSpoolReference());
+        assertTrue(loaded.offload(dir, Integer.MAX_VALUE, "1"));
+        assertEquals(1, BlobStore.getReferences(dir, loaded.getStoredDigest()));
+        assertEquals(text, loaded.getValue());
+    }
+
+    @Test
+    void testCancelledValueIsReleased() throws Exception {
+        File dir = Files.createTempDirectory("yaml-parameters").toFile();
+        ValidatingYamlParameterValue value = spool("cancelled: true\n", dir);
+        ValueStorage.releaseSpooled(dir, List.of(value));
+        assertNull(value.getSpoolReference());
+        assertEquals(0, dir.list().length);
+    }
+
+    @Test
+    void testOrphanedReferencesAreReleased() throws Exception {
+        File dir = Files.createTempDirectory("yaml-parameters").toFile();
+        ValidatingYamlParameterValue queued = spool("merged: true\n", dir);
+        ValidatingYamlParameterValue merged = spool("merged: true\n", dir);
+        assertEquals(2, BlobStore.getReferences(dir, queued.getStoredDigest()));
+
+        // too recent: the value may not be in the queue yet
+        ValueSpool.releaseOrphans(dir, Set.of(queued.getSpoolReference()), System.currentTimeMillis() - ValueSpool.ORPHAN_MILLIS);
+        assertEquals(2, BlobStore.getReferences(dir, queued.getStoredDigest()));
+
+        ValueSpool.releaseOrphans(dir, Set.of(queued.getSpoolReference()), Long.MAX_VALUE);
+        assertEquals(1, BlobStore.getReferences(dir, queued.getStoredDigest()));
+        assertEquals("merged: true\n", queued.getValue());
+        assertFalse(merged.getSpoolReference().equals(queued.getSpoolReference()));
+    }
+
+    @Test
+    void testUnfinishedSpoolLeavesNothingBehind() throws Exception {
+        File dir = Files.createTempDirectory("yaml-parameters").toFile();
+        try (ValueSpool spool = new ValueSpool(new StringReader("key: : value"), new ValidationLimits(), dir)) {
+            assertFalse(YamlValidator.get().validate(spool, ValidationMode.PARSE, false, ValidationLimits.effective(null), null).getResult());
+        }
+        assertEquals(0, dir.list().length);
+    }
+
+    private static ValidatingYamlParameterValue spool(String text, File dir) throws Exception {
+        try (ValueSpool spool = new ValueSpool(new StringReader(text), new ValidationLimits(), dir)) {
+            return spool.finish("DUMMY", null);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 csanchez.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.jenkins.plugins.validating_yaml_parameter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.yaml.snakeyaml.LoaderOptions;
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.constructor.SafeConstructor;
+import org.yaml.snakeyaml.error.YAMLException;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author csanchez
+ */
+class YamlTreeTest {
+
+    private static YamlTree tree(String yaml) {
+        return YamlValidator.get().loadTree(yaml, ValidationLimits.DEFAULTS);
+    }
+
+    private static void assertSameAsConstructor(String yaml) {
+        Object expected = new Yaml(new SafeConstructor(new LoaderOptions())).load(yaml);
+        assertEquals(expected, tree(yaml).getRoot(), yaml);
+    }
+
+    @Test
+    void testMatchesSafeConstructor() {
+        assertSameAsConstructor("a: 1\nb: [x, 2.5, true, null, ~]\nc: {d: 0x1F, e: 1_000, f: .inf}\n");
+        assertSameAsConstructor("text: \"quoted\\tescape\"\nsingle: 'it''s'\nblock: |\n  line 1\n  line 2\nfolded: >\n  a\n  b\n");
+        assertSameAsConstructor("- 1\n- [2, [3, {four: 4}]]\n- ''\n- !!str 5\n- !!int '6'\n");
+        assertSameAsConstructor("unicode: \"\\u00e9t\\u00e9 \\U0001F600\"\nplain: été 😀 ok\nafter: value\n");
+        assertSameAsConstructor("1: int key\n'1': string key\ntrue: yes\n");
+    }
+
+    @Test
+    void testAliasesAndMergeKeys() {
+        assertSameAsConstructor("base: &b {x: 1, y: 2}\nlist: [*b, *b]\nchild:\n  <<: *b\n  y: 3\n");
+        assertSameAsConstructor("a: &a {p: 1}\nb: &b {p: 2, q: 2}\nc:\n  <<: [*a, *b]\n  r: 3\n");
+    }
+
+    @Test
+    void testDuplicateKeysLastWins() {
+        assertSameAsConstructor("a: 1\nb: 2\na: 3\n");
+        assertEquals(3, ((Map<?, ?>) tree("a: 1\na: 3\n").getRoot()).get("a"));
+    }
+
+    @Test
+    void testPlainScalarsAreNotCopied() {
+        Map<?, ?> root = (Map<?, ?>) tree("name: nginx\nimage: {tag: '1.25'}\n").getRoot();
+        assertEquals("nginx", root.get("name"));
+        assertTrue(root.containsKey("image"));
+        assertFalse(root.containsKey("missing"));
+        assertNull(root.get("missing"));
+        assertEquals("1.25", ((Map<?, ?>) root.get("image")).get("tag"));
+    }
+
+    @Test
+    void testReadOnly() {
+        Map<?, ?> root = (Map<?, ?>) tree("a: [1]\n").getRoot();
+        assertThrows(UnsupportedOperationException.class, root::clear);
+        assertThrows(UnsupportedOperationException.class, () -> ((List<?>) root.get("a")).remove(0));
+    }
+
+    @Test
+    void testEmptyAndMultipleDocuments() {
+        assertNull(tree("").getRoot());
+        assertNull(tree("# only a comment\n").getRoot());
+        assertThrows(YAMLException.class, () -> tree("a: 1\n---\nb: 2\n"));
+        assertThrows(YAMLException.class, () -> tree("a: [1"));
+    }
+
+    @Test
+    void testSeveralDocumentsAreAList() {
+        String yaml = "a: &x 1\n---\n- b\n- c\n--- plain\n---\n";
+        List<Object> expected = new ArrayList<>();
+        new Yaml(new SafeConstructor(new LoaderOptions())).loadAll(yaml).forEach(expected::add);
+        assertEquals(expected, YamlValidator.get().loadTree(yaml, true, ValidationLimits.DEFAULTS).getRoot());
+        assertEquals(List.of(), YamlValidator.get().loadTree("# only a comment\n", true, ValidationLimits.DEFAULTS).getRoot());
+        // anchors belong to their document
+        assertThrows(YAMLException.class, () -> YamlValidator.get().loadTree("a: &x 1\n---\nb: *x\n", true, ValidationLimits.DEFAULTS));
+    }
+
+    @Test
+    void testExpansionFactorIsEnforced() {
+        StringBuilder sb = new StringBuilder("l0: &l0 [x, x, x, x, x, x, x, x, x, x]\n");
+        for (int level = 1; level <= 6; level++) {
+            sb.append('l').append(level).append(": &l").append(level).append(" [");
+            for (int i = 0; i < 10; i++) {
+                sb.append(i == 0 ? "" : ", ").append("*l").append(level - 1);
+            }
+            sb.append("]\n");
+        }
+        ValidationLimits limits = ValidationLimits.DEFAULTS.overriddenBy(new ValidationLimits(null, null, null, null, 0));
+        LimitExceededException e = assertThrows(LimitExceededException.class, () -> YamlValidator.get().loadTree(sb.toString(), limits));
+        assertTrue(e.getMessage().contains("maximum expansion factor"), e.getMessage());
+    }
+
+    @Test
+    void testSerializable() throws Exception {
+        Object root = tree("a: [1, {b: c}]\n").getRoot();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(root);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            assertEquals(root, in.readObject());
+        }
+    }
+}
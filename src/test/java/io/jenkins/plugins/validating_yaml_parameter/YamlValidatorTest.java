@@ -0,0 +1,367 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 csanchez.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.jenkins.plugins.validating_yaml_parameter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author csanchez
+ */
+class YamlValidatorTest {
+
+    @Test
+    void testValidYaml() {
+        YamlValidator validator = new YamlValidator(new ValidationCache(10, 1024 * 1024));
+        ValidationResult vres = validator.validate("key: value", ValidationMode.CONSTRUCT, ValidationLimits.DEFAULTS);
+        assertTrue(vres.getResult());
+        assertNull(vres.getError());
+    }
+
+    @Test
+    void testInvalidYamlReportsError() {
+        YamlValidator validator = new YamlValidator(new ValidationCache(10, 1024 * 1024));
+        ValidationResult vres = validator.validate("key: : value", ValidationMode.PARSE, ValidationLimits.DEFAULTS);
+        assertFalse(vres.getResult());
+        assertTrue(vres.getError().contains("mapping values are not allowed here"));
+    }
+
+    @Test
+    void testNullValueIsInvalid() {
+        YamlValidator validator = new YamlValidator(new ValidationCache(10, 1024 * 1024));
+        assertFalse(validator.validate(null, ValidationMode.CONSTRUCT, ValidationLimits.DEFAULTS).getResult());
+    }
+
+    @Test
+    void testResultsAreCachedPerMode() {
+        ValidationCache cache = new ValidationCache(10, 1024 * 1024);
+        YamlValidator validator = new YamlValidator(cache);
+        ValidationResult first = validator.validate("key: value", ValidationMode.CONSTRUCT, ValidationLimits.DEFAULTS);
+        assertSame(first, validator.validate("key: value", ValidationMode.CONSTRUCT, ValidationLimits.DEFAULTS));
+        assertNotSame(first, validator.validate("key: value", ValidationMode.COMPOSE, ValidationLimits.DEFAULTS));
+        assertEquals(1, cache.getHits());
+        assertEquals(2, cache.getMisses());
+    }
+
+    @Test
+    void testConcurrentValidation() throws Exception {
+        YamlValidator validator = new YamlValidator(new ValidationCache(0, 0));
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                String yaml = i % 2 == 0 ? "key" + i + ": value" : "key" + i + ": : value";
+                results.add(executor.submit(() -> validator.validate(yaml, ValidationMode.CONSTRUCT, ValidationLimits.DEFAULTS).getResult()));
+            }
+            for (int i = 0; i < results.size(); i++) {
+                assertEquals(i % 2 == 0, results.get(i).get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testOversizedDocumentIsRejectedBeforeParsing() {
+        YamlValidator validator = new YamlValidator(new ValidationCache(10, 1024 * 1024));
+        ValidationLimits limits = ValidationLimits.DEFAULTS.overriddenBy(new ValidationLimits(16, null, null, null, null));
+        ValidationResult vres = validator.validate("key: value\nother: value\n", ValidationMode.PARSE, limits);
+        assertFalse(vres.getResult());
+        assertEquals(ValidationResult.Outcome.LIMIT_EXCEEDED, vres.getOutcome());
+        assertEquals("document exceeds 16 bytes", vres.getError());
+    }
+
+    @Test
+    void testDepthLimitInEveryMode() {
+        YamlValidator validator = new YamlValidator(new ValidationCache(10, 1024 * 1024));
+        ValidationLimits limits = ValidationLimits.DEFAULTS.overriddenBy(new ValidationLimits(null, null, 3, null, null));
+        for (ValidationMode mode : ValidationMode.values()) {
+            assertTrue(validator.validate("a: [[1]]", mode, limits).getResult(), mode.name());
+            ValidationResult vres = validator.validate("a: [[[1]]]", mode, limits);
+            assertEquals(ValidationResult.Outcome.LIMIT_EXCEEDED, vres.getOutcome(), mode.name());
+        }
+    }
+
+    @Test
+    void testNodeLimitInEveryMode() {
+        YamlValidator validator = new YamlValidator(new ValidationCache(10, 1024 * 1024));
+        ValidationLimits limits = ValidationLimits.DEFAULTS.overriddenBy(new ValidationLimits(null, null, null, 5, null));
+        for (ValidationMode mode : ValidationMode.values()) {
+            assertTrue(validator.validate("a: 1\nb: 2", mode, limits).getResult(), mode.name());
+            ValidationResult vres = validator.validate("a: 1\nb: 2\nc: 3", mode, limits);
+            assertEquals(ValidationResult.Outcome.LIMIT_EXCEEDED, vres.getOutcome(), mode.name());
+            assertEquals("document exceeds the maximum of 5 nodes", vres.getError());
+        }
+    }
+
+    @Test
+    void testAliasLimitOnlyCountsCollections() {
+        YamlValidator validator = new YamlValidator(new ValidationCache(10, 1024 * 1024));
+        ValidationLimits limits = ValidationLimits.DEFAULTS.overriddenBy(new ValidationLimits(null, null, null, null, 2));
+        String scalarAliases = "a: &x 1\nb: *x\nc: *x\nd: *x\n";
+        String collectionAliases = "a: &x [1]\nb: *x\nc: *x\nd: *x\n";
+        for (ValidationMode mode : ValidationMode.values()) {
+            assertTrue(validator.validate(scalarAliases, mode, limits).getResult(), mode.name());
+            ValidationResult vres = validator.validate(collectionAliases, mode, limits);
+            assertEquals(ValidationResult.Outcome.LIMIT_EXCEEDED, vres.getOutcome(), mode.name());
+        }
+    }
+
+    @Test
+    void testCacheKeyIncludesLimits() {
+        YamlValidator validator = new YamlValidator(new ValidationCache(10, 1024 * 1024));
+        ValidationLimits tight = ValidationLimits.DEFAULTS.overriddenBy(new ValidationLimits(4, null, null, null, null));
+        assertTrue(validator.validate("key: value", ValidationMode.CONSTRUCT, ValidationLimits.DEFAULTS).getResult());
+        assertFalse(validator.validate("key: value", ValidationMode.CONSTRUCT, tight).getResult());
+    }
+
+    private static String largeYaml(int entries) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < entries; i++) {
+            sb.append("key").append(i).append(": [value, ").append(i).append("]\n");
+        }
+        return sb.toString();
+    }
+
+    @Test
+    void testDeadlineStopsInlineParse() {
+        YamlValidator validator = new YamlValidator(new ValidationCache(10, 1024 * 1024));
+        long anHourAgo = System.nanoTime() - TimeUnit.HOURS.toNanos(1);
+        ValidationResult vres = validator.check(largeYaml(2000), ValidationMode.PARSE, ValidationLimits.DEFAULTS, null, anHourAgo);
+        assertEquals(ValidationResult.Outcome.TIMEOUT, vres.getOutcome());
+        assertTrue(vres.isRejected());
+    }
+
+    @Test
+    void testTimeoutOffThreadIsNotCached() {
+        ValidationCache cache = new ValidationCache(10, 1024 * 1024);
+        ExecutorService executor = YamlValidator.newExecutor(1, 1);
+        try {
+            YamlValidator validator = new YamlValidator(cache, executor);
+            ValidationLimits limits = ValidationLimits.DEFAULTS.overriddenBy(new ValidationLimits(0, 0, null, 0, null));
+            limits.setTimeoutMillis(1);
+            ValidationResult vres = validator.validate(largeYaml(200_000), ValidationMode.CONSTRUCT, limits);
+            assertEquals(ValidationResult.Outcome.TIMEOUT, vres.getOutcome());
+            assertEquals(0, cache.getSize());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testLargeValueIsValidatedOffThread() {
+        ExecutorService executor = YamlValidator.newExecutor(1, 1);
+        try {
+            YamlValidator validator = new YamlValidator(new ValidationCache(10, 1024 * 1024), executor);
+            assertTrue(validator.validate(largeYaml(5000), ValidationMode.COMPOSE, ValidationLimits.DEFAULTS).getResult());
+            ValidationResult vres = validator.validate(largeYaml(5000) + "key: : value\n", ValidationMode.COMPOSE, ValidationLimits.DEFAULTS);
+            assertEquals(ValidationResult.Outcome.INVALID, vres.getOutcome());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testFullQueueIsRejected() throws Exception {
+        ExecutorService executor = YamlValidator.newExecutor(1, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            executor.submit(() -> release.await(1, TimeUnit.MINUTES));
+            executor.submit(() -> release.await(1, TimeUnit.MINUTES));
+            YamlValidator validator = new YamlValidator(new ValidationCache(10, 1024 * 1024), executor);
+            ValidationResult vres = validator.validate(largeYaml(5000), ValidationMode.PARSE, ValidationLimits.DEFAULTS);
+            assertEquals(ValidationResult.Outcome.TIMEOUT, vres.getOutcome());
+            assertEquals("too many YAML validations in progress, try again later", vres.getError());
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testLargeValueIsValidatedInPlaceOnAValidatingPool() throws Exception {
+        ExecutorService executor = YamlValidator.newExecutor(1, 1);
+        ExecutorService batch = YamlValidator.newExecutor("batch", 1, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            executor.submit(() -> release.await(1, TimeUnit.MINUTES));
+            executor.submit(() -> release.await(1, TimeUnit.MINUTES));
+            YamlValidator validator = new YamlValidator(new ValidationCache(10, 1024 * 1024), executor);
+            ValidationResult vres = batch.submit(() -> validator.validate(largeYaml(5000), ValidationMode.PARSE, ValidationLimits.DEFAULTS)).get();
+            assertTrue(vres.getResult());
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+            batch.shutdownNow();
+        }
+    }
+
+    @Test
+    void testConcurrentIdenticalValidationsAreCoalesced() throws Exception {
+        ThreadPoolExecutor executor = (ThreadPoolExecutor) YamlValidator.newExecutor(1, 4);
+        ExecutorService callers = Executors.newFixedThreadPool(4);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            executor.submit(() -> release.await(1, TimeUnit.MINUTES));
+            YamlValidator validator = new YamlValidator(new ValidationCache(10, 1024 * 1024), executor);
+            String value = largeYaml(5000);
+            List<Future<ValidationResult>> results = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                results.add(callers.submit(() -> validator.validate(value, ValidationMode.COMPOSE, ValidationLimits.DEFAULTS)));
+            }
+            while (executor.getQueue().isEmpty()) {
+                Thread.sleep(10);
+            }
+            Thread.sleep(100);
+            assertEquals(1, executor.getQueue().size());
+            assertEquals(1, validator.getInFlight());
+            release.countDown();
+            ValidationResult first = results.get(0).get(1, TimeUnit.MINUTES);
+            assertTrue(first.getResult());
+            for (Future<ValidationResult> result : results) {
+                assertSame(first, result.get(1, TimeUnit.MINUTES));
+            }
+            assertEquals(0, validator.getInFlight());
+        } finally {
+            release.countDown();
+            callers.shutdownNow();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testMultipleDocumentsAreValidatedOneByOne() {
+        YamlValidator validator = new YamlValidator(new ValidationCache(10, 1024 * 1024));
+        String stream = "a: 1\n---\nb: 2\n---\nc: [3]\n";
+        for (ValidationMode mode : ValidationMode.values()) {
+            assertFalse(validator.validate(stream, mode, ValidationLimits.DEFAULTS).getResult(), mode.name());
+            ValidationResult vres = validator.validate(stream, mode, true, ValidationLimits.DEFAULTS, null);
+            assertTrue(vres.getResult(), mode.name());
+            assertEquals(3, vres.getDocuments(), mode.name());
+            assertEquals(0, vres.getFailedDocument(), mode.name());
+        }
+    }
+
+    @Test
+    void testFirstFailingDocumentIsReported() {
+        YamlValidator validator = new YamlValidator(new ValidationCache(0, 0));
+        ValidationResult vres = validator.validate("a: 1\n---\nb: 2\n---\nc: : 3\n---\nd: 4\n", ValidationMode.COMPOSE, true, ValidationLimits.DEFAULTS, null);
+        assertFalse(vres.getResult());
+        assertEquals(3, vres.getFailedDocument());
+        assertTrue(vres.getError().startsWith("document 3: "), vres.getError());
+
+        JsonSchema schema = JsonSchema.compile("{type: object, required: [kind]}");
+        vres = validator.validate("kind: A\n---\nkind: B\n---\nname: C\n", ValidationMode.PARSE, true, ValidationLimits.DEFAULTS, schema);
+        assertEquals(ValidationResult.Outcome.SCHEMA_VIOLATION, vres.getOutcome());
+        assertEquals(3, vres.getFailedDocument());
+        assertTrue(vres.getError().startsWith("document 3: "), vres.getError());
+    }
+
+    @Test
+    void testCachedFailuresNameTheirDocumentOnce() {
+        YamlValidator validator = new YamlValidator(new ValidationCache(100, 1 << 20));
+        String value = "a: 1\n---\nb: : 2\n";
+        for (int i = 0; i < 3; i++) {
+            ValidationResult vres = validator.validate(value, ValidationMode.COMPOSE, true, ValidationLimits.DEFAULTS, null);
+            assertTrue(vres.getError().startsWith("document 2: "), vres.getError());
+            assertFalse(vres.getError().startsWith("document 2: document"), vres.getError());
+            vres = validator.validateDocuments("x: 1\n---\n" + value, ValidationMode.COMPOSE, ValidationLimits.DEFAULTS, null);
+            assertTrue(vres.getError().startsWith("document 3: "), vres.getError());
+            assertFalse(vres.getError().contains("document 2"), vres.getError());
+        }
+    }
+
+    @Test
+    void testDocumentLimits() {
+        YamlValidator validator = new YamlValidator(new ValidationCache(0, 0));
+        ValidationLimits limits = new ValidationLimits();
+        limits.setMaxNodes(6);
+        limits.setMaxAliases(1);
+        // per document: every document is within the node and alias limits
+        String stream = "a: &x [1]\nb: *x\n---\na: &x [1]\nb: *x\n---\na: &x [1]\nb: *x\n";
+        assertTrue(validator.validate(stream, ValidationMode.CONSTRUCT, true, ValidationLimits.DEFAULTS.overriddenBy(limits), null).getResult());
+
+        limits.setMaxDocuments(2);
+        ValidationResult vres = validator.validate(stream, ValidationMode.CONSTRUCT, true, ValidationLimits.DEFAULTS.overriddenBy(limits), null);
+        assertEquals(ValidationResult.Outcome.LIMIT_EXCEEDED, vres.getOutcome());
+        assertEquals("document 3: stream exceeds the maximum of 2 documents", vres.getError());
+
+        limits.setMaxDocuments(null);
+        limits.setMaxTotalNodes(12);
+        vres = validator.validate(stream, ValidationMode.PARSE, true, ValidationLimits.DEFAULTS.overriddenBy(limits), null);
+        assertEquals(ValidationResult.Outcome.LIMIT_EXCEEDED, vres.getOutcome());
+        assertEquals("document 3: stream exceeds the maximum of 12 nodes in total", vres.getError());
+    }
+
+    @Test
+    void testOnlyEditedDocumentsAreParsedAgain() {
+        ValidationCache cache = new ValidationCache(10, 1024 * 1024);
+        YamlValidator validator = new YamlValidator(cache);
+        ValidationResult vres = validator.validateDocuments("a: 1\n---\nb: 2\n---\nc: [3]\n", ValidationMode.CONSTRUCT, ValidationLimits.DEFAULTS, null);
+        assertTrue(vres.getResult());
+        assertEquals(3, vres.getDocuments());
+        assertFalse(vres.isCacheHit());
+        assertEquals(3, cache.getMisses());
+
+        vres = validator.validateDocuments("a: 1\n---\nb: 20\n---\nc: [3]\n", ValidationMode.CONSTRUCT, ValidationLimits.DEFAULTS, null);
+        assertTrue(vres.getResult());
+        assertEquals(3, vres.getDocuments());
+        assertEquals(4, cache.getMisses());
+        assertEquals(2, cache.getHits());
+
+        vres = validator.validateDocuments("a: 1\n---\nb: 20\n---\nc: [3]\n", ValidationMode.CONSTRUCT, ValidationLimits.DEFAULTS, null);
+        assertTrue(vres.isCacheHit());
+    }
+
+    @Test
+    void testDocumentByDocumentMatchesTheWholeStream() {
+        YamlValidator validator = new YamlValidator(new ValidationCache(10, 1024 * 1024));
+        String stream = "a: 1\n---\nb: 2\n...\n%YAML 1.1\n---\nc: : 3\n---\nd: 4\n";
+        ValidationResult whole = validator.validate(stream, ValidationMode.COMPOSE, true, ValidationLimits.DEFAULTS, null);
+        ValidationResult byDocument = validator.validateDocuments(stream, ValidationMode.COMPOSE, ValidationLimits.DEFAULTS, null);
+        assertFalse(byDocument.getResult());
+        assertEquals(whole.getFailedDocument(), byDocument.getFailedDocument());
+        assertEquals(whole.getError(), byDocument.getError());
+        assertTrue(byDocument.getError().contains("line 7, column"), byDocument.getError());
+
+        ValidationLimits limits = new ValidationLimits();
+        limits.setMaxDocuments(2);
+        stream = "a: [1]\n---\nb: [2]\n---\nc: [3]\n";
+        assertEquals(validator.validate(stream, ValidationMode.PARSE, true, ValidationLimits.DEFAULTS.overriddenBy(limits), null).getError(),
+                validator.validateDocuments(stream, ValidationMode.PARSE, ValidationLimits.DEFAULTS.overriddenBy(limits), null).getError());
+        limits.setMaxDocuments(null);
+        limits.setMaxTotalNodes(7);
+        assertEquals(validator.validate(stream, ValidationMode.PARSE, true, ValidationLimits.DEFAULTS.overriddenBy(limits), null).getError(),
+                validator.validateDocuments(stream, ValidationMode.PARSE, ValidationLimits.DEFAULTS.overriddenBy(limits), null).getError());
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 csanchez.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+"use strict";
+
+const test = require("node:test");
+const assert = require("node:assert");
+const fs = require("node:fs");
+const path = require("node:path");
+const vm = require("node:vm");
+
+const SOURCE = path.join(__dirname, "../../main/webapp/js/validating-yaml-parameter.js");
+
+/**
+ * Loads the form script into a fake page holding a single parameter, and records what it does:
+ * the values linted on the main thread, those posted to the worker and the server requests.
+ */
+function page(text) {
+    const listeners = {};
+    const textarea = {
+        value: text,
+        addEventListener: (type, listener) => {
+            listeners[type] = listener;
+        }
+    };
+    const message = { className: "", innerHTML: "", replaceChildren: (div) => (message.innerHTML = div.textContent) };
+    const container = {
+        dataset: { validateUrl: "validate", workerUrl: "worker.js" },
+        querySelector: (selector) => (selector.startsWith("textarea") ? textarea : selector.startsWith("input") ? null : message)
+    };
+    const recorded = { linted: [], posted: [], fetched: [] };
+    const context = {
+        Behaviour: { specify: (selector, id, priority, attach) => attach(container) },
+        document: { createElement: () => ({}) },
+        crumb: { wrap: (headers) => headers },
+        URLSearchParams: URLSearchParams,
+        setTimeout: () => 0,
+        clearTimeout: () => {},
+        ValidatingYamlParameterLint: {
+            lint: (value) => {
+                recorded.linted.push(value);
+                return value.includes("\t") ? { line: 1, message: "line 1: tab characters cannot be used for indentation" } : null;
+            }
+        },
+        Worker: function () {
+            const worker = this;
+            worker.postMessage = (data) => {
+                recorded.posted.push(data.text);
+                worker.onmessage({ data: { id: data.id, error: null } });
+            };
+        },
+        fetch: (url, options) => {
+            recorded.fetched.push(options.body.get("value"));
+            return new Promise(() => {});
+        }
+    };
+    vm.runInNewContext(fs.readFileSync(SOURCE, "utf8"), context);
+    return {
+        recorded: recorded,
+        message: message,
+        edit: (value) => {
+            textarea.value = value;
+        },
+        blur: () => listeners.blur()
+    };
+}
+
+test("large values are never linted on the main thread", () => {
+    const large = "a: b\n".repeat(20000);
+    const form = page(large);
+    form.blur();
+    assert.deepStrictEqual(form.recorded.linted, []);
+    assert.strictEqual(form.recorded.posted.length, 1);
+    assert.deepStrictEqual(form.recorded.fetched, [large]);
+});
+
+test("the lint result is reused when the field loses focus", () => {
+    const form = page("a: b\n");
+    form.blur();
+    assert.deepStrictEqual(form.recorded.linted, ["a: b\n"]);
+    assert.deepStrictEqual(form.recorded.fetched, ["a: b\n"]);
+});
+
+test("edited values are linted again", () => {
+    const form = page("a: b\n");
+    form.edit("a: c\n");
+    form.blur();
+    assert.deepStrictEqual(form.recorded.linted, ["a: b\n", "a: c\n"]);
+    assert.deepStrictEqual(form.recorded.fetched, ["a: c\n"]);
+});
+
+test("the server is not asked while a local error is shown", () => {
+    const form = page("a:\n\tb: 1\n");
+    form.blur();
+    assert.deepStrictEqual(form.recorded.fetched, []);
+    assert.match(form.message.innerHTML, /tab characters/);
+});
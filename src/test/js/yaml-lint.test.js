@@ -0,0 +1,61 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 csanchez.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+"use strict";
+
+const test = require("node:test");
+const assert = require("node:assert");
+const fs = require("node:fs");
+const path = require("node:path");
+const vm = require("node:vm");
+
+const SOURCE = path.join(__dirname, "../../main/webapp/js/yaml-lint.js");
+
+function load() {
+    const context = {};
+    context.self = context;
+    vm.runInNewContext(fs.readFileSync(SOURCE, "utf8"), context);
+    return context.ValidatingYamlParameterLint;
+}
+
+const lint = load().lint;
+
+test("valid values are not reported", () => {
+    assert.strictEqual(lint("a: 1\nb:\n  - [x, y]\n  - {c: 'd'}\n"), null);
+    assert.strictEqual(lint(""), null);
+});
+
+test("tabs used for indentation are reported", () => {
+    const error = lint("a:\n\tb: 1\n");
+    assert.strictEqual(error.line, 2);
+    assert.match(error.message, /^line 2: tab characters cannot be used for indentation/);
+});
+
+test("unterminated quoted strings are reported", () => {
+    assert.match(lint("a: 'b\n").message, /quoted string is not terminated/);
+});
+
+test("unbalanced flow brackets are reported", () => {
+    assert.match(lint("a: [1, 2\n").message, /'\[' is never closed/);
+});